@@ -0,0 +1,214 @@
+package usr.skyswimmer.quicktoolsutils.events.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ *
+ * Annotation processor that generates event dispatchers at compile time, for
+ * each class declaring EventListener methods a dispatcher index is generated
+ * which event buses use instead of generating dispatchers at runtime
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class EventListenerProcessor extends AbstractProcessor {
+
+	private static final String EVENT_LISTENER = "usr.skyswimmer.quicktoolsutils.events.EventListener";
+	private static final String EVENT_OBJECT = "usr.skyswimmer.quicktoolsutils.events.EventObject";
+	private static final String SUPPLIER_EVENT_OBJECT = "usr.skyswimmer.quicktoolsutils.events.SupplierEventObject";
+	private static final String EVENT_RECEIVER = "usr.skyswimmer.quicktoolsutils.events.IEventReceiver";
+	private static final String DISPATCHER_PACKAGE = "usr.skyswimmer.quicktoolsutils.events.impl.asm";
+	private static final String INDEX_SUFFIX = "_EventDispatchers";
+
+	private static class ListenerInfo {
+		public ExecutableElement method;
+		public String eventType;
+		public String eventBinaryName;
+		public boolean isStatic;
+		public boolean supplier;
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Set.of(EVENT_LISTENER);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement listenerAnno = processingEnv.getElementUtils().getTypeElement(EVENT_LISTENER);
+		TypeElement eventObject = processingEnv.getElementUtils().getTypeElement(EVENT_OBJECT);
+		TypeElement supplierEventObject = processingEnv.getElementUtils().getTypeElement(SUPPLIER_EVENT_OBJECT);
+		if (listenerAnno == null || eventObject == null || supplierEventObject == null)
+			return false;
+
+		// Find listeners
+		LinkedHashMap<TypeElement, ArrayList<ListenerInfo>> receivers = new LinkedHashMap<TypeElement, ArrayList<ListenerInfo>>();
+		for (Element element : roundEnv.getElementsAnnotatedWith(listenerAnno)) {
+			if (element.getKind() != ElementKind.METHOD)
+				continue;
+			ExecutableElement meth = (ExecutableElement) element;
+			TypeElement owner = (TypeElement) meth.getEnclosingElement();
+
+			// Event buses only bind public non-abstract methods with a single event
+			// parameter, anything else is left to the runtime
+			if (!meth.getModifiers().contains(Modifier.PUBLIC) || meth.getModifiers().contains(Modifier.ABSTRACT)
+					|| meth.getParameters().size() != 1 || !isAccessible(owner))
+				continue;
+			TypeMirror param = processingEnv.getTypeUtils().erasure(meth.getParameters().get(0).asType());
+			if (param.getKind() != TypeKind.DECLARED || !processingEnv.getTypeUtils().isAssignable(param,
+					processingEnv.getTypeUtils().erasure(eventObject.asType())))
+				continue;
+			TypeElement paramType = (TypeElement) ((DeclaredType) param).asElement();
+			if (!isAccessible(paramType)) {
+				processingEnv.getMessager().printMessage(Kind.NOTE,
+						"Event type not accessible to generated code, dispatcher will be generated at runtime", meth);
+				continue;
+			}
+
+			// Add listener
+			ListenerInfo info = new ListenerInfo();
+			info.method = meth;
+			info.eventType = paramType.getQualifiedName().toString();
+			info.eventBinaryName = processingEnv.getElementUtils().getBinaryName(paramType).toString();
+			info.isStatic = meth.getModifiers().contains(Modifier.STATIC);
+			info.supplier = processingEnv.getTypeUtils().isAssignable(param,
+					processingEnv.getTypeUtils().erasure(supplierEventObject.asType()));
+			receivers.computeIfAbsent(owner, t -> new ArrayList<ListenerInfo>()).add(info);
+		}
+
+		// Generate indexes
+		for (TypeElement owner : receivers.keySet()) {
+			try {
+				writeIndex(owner, receivers.get(owner));
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Kind.ERROR,
+						"Failed to generate event dispatchers: " + e.getMessage(), owner);
+			}
+		}
+		return false;
+	}
+
+	private boolean isAccessible(TypeElement type) {
+		// The generated index lives in the same package, so only private types and
+		// local or anonymous classes are out of reach
+		Element current = type;
+		while (current instanceof TypeElement) {
+			TypeElement t = (TypeElement) current;
+			if (t.getModifiers().contains(Modifier.PRIVATE) || t.getNestingKind() == NestingKind.LOCAL
+					|| t.getNestingKind() == NestingKind.ANONYMOUS)
+				return false;
+			current = t.getEnclosingElement();
+		}
+		return true;
+	}
+
+	private void writeIndex(TypeElement owner, ArrayList<ListenerInfo> listeners) throws IOException {
+		// Compute names
+		String pkg = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(owner).toString();
+		String simpleName = (pkg.isEmpty() ? binaryName : binaryName.substring(pkg.length() + 1)).replace('$', '_')
+				+ INDEX_SUFFIX;
+		String ownerName = processingEnv.getTypeUtils().erasure(owner.asType()).toString();
+
+		// Write source
+		JavaFileObject file = processingEnv.getFiler()
+				.createSourceFile(pkg.isEmpty() ? simpleName : pkg + "." + simpleName, owner);
+		try (PrintWriter out = new PrintWriter(file.openWriter())) {
+			if (!pkg.isEmpty()) {
+				out.println("package " + pkg + ";");
+				out.println();
+			}
+			out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+			out.println("@SuppressWarnings({ \"rawtypes\", \"unchecked\" })");
+			out.println("public final class " + simpleName + " implements " + DISPATCHER_PACKAGE
+					+ ".IEventDispatcherIndex {");
+			out.println();
+
+			// Index method
+			out.println("\t@Override");
+			out.println("\tpublic Object getDispatcher(String method, String eventType) {");
+			out.println("\t\tswitch (method + \"(\" + eventType + \")\") {");
+			for (int i = 0; i < listeners.size(); i++) {
+				ListenerInfo info = listeners.get(i);
+				out.println("\t\tcase \"" + info.method.getSimpleName() + "(" + info.eventBinaryName + ")\":");
+				out.println("\t\t\treturn new Dispatcher" + i + "();");
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\treturn null;");
+			out.println("\t\t}");
+			out.println("\t}");
+
+			// Dispatchers
+			for (int i = 0; i < listeners.size(); i++) {
+				ListenerInfo info = listeners.get(i);
+				String target = info.isStatic ? ownerName : "((" + ownerName + ") receiver)";
+				String call = target + "." + info.method.getSimpleName() + "((" + info.eventType + ") event)";
+				boolean returnsValue = info.method.getReturnType().getKind() != TypeKind.VOID;
+				out.println();
+				if (!info.supplier) {
+					if (info.isStatic) {
+						out.println("\tprivate static final class Dispatcher" + i + " implements "
+								+ DISPATCHER_PACKAGE + ".IStaticEventDispatcher {");
+						out.println("\t\t@Override");
+						out.println("\t\tpublic void dispatch(" + EVENT_OBJECT + " event) {");
+					} else {
+						out.println("\tprivate static final class Dispatcher" + i + " implements "
+								+ DISPATCHER_PACKAGE + ".IEventDispatcher {");
+						out.println("\t\t@Override");
+						out.println("\t\tpublic void dispatch(" + EVENT_RECEIVER + " receiver, " + EVENT_OBJECT
+								+ " event) {");
+					}
+					out.println("\t\t\t" + call + ";");
+				} else {
+					if (info.isStatic) {
+						out.println("\tprivate static final class Dispatcher" + i + " implements "
+								+ DISPATCHER_PACKAGE + ".IStaticSupplierEventDispatcher {");
+						out.println("\t\t@Override");
+						out.println("\t\tpublic Object dispatch(" + SUPPLIER_EVENT_OBJECT + "<?> event) {");
+					} else {
+						out.println("\tprivate static final class Dispatcher" + i + " implements "
+								+ DISPATCHER_PACKAGE + ".ISupplierEventDispatcher {");
+						out.println("\t\t@Override");
+						out.println("\t\tpublic Object dispatch(" + EVENT_RECEIVER + " receiver, "
+								+ SUPPLIER_EVENT_OBJECT + "<?> event) {");
+					}
+					if (returnsValue)
+						out.println("\t\t\treturn " + call + ";");
+					else {
+						out.println("\t\t\t" + call + ";");
+						out.println("\t\t\treturn null;");
+					}
+				}
+				out.println("\t\t}");
+				out.println("\t}");
+			}
+			out.println();
+			out.println("}");
+		}
+	}
+
+}
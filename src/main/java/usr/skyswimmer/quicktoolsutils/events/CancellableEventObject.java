@@ -18,6 +18,8 @@ public abstract class CancellableEventObject extends EventObject {
 	 * @return True if the event has been cancelled, false otherwise
 	 */
 	public boolean isCancelled() {
+		if (released)
+			checkNotReleased();
 		return cancelled;
 	}
 
@@ -29,4 +31,10 @@ public abstract class CancellableEventObject extends EventObject {
 		setHandled();
 	}
 
+	@Override
+	protected void reset() {
+		super.reset();
+		cancelled = false;
+	}
+
 }
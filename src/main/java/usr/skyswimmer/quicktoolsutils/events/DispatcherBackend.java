@@ -0,0 +1,28 @@
+package usr.skyswimmer.quicktoolsutils.events;
+
+/**
+ * 
+ * Dispatcher backends, used to select how event buses generate the code that
+ * calls {@link usr.skyswimmer.quicktoolsutils.events.EventListener
+ * EventListener}-annotated methods
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public enum DispatcherBackend {
+
+	/**
+	 * Generates dispatchers with ASM into a shared class loader, dispatchers
+	 * cannot be unloaded but can be compiled into dispatch chains for hot event
+	 * types
+	 */
+	ASM,
+
+	/**
+	 * Generates dispatchers as hidden classes through LambdaMetafactory,
+	 * dispatchers are unloaded together with the receiver class that declares the
+	 * listener method
+	 */
+	HIDDEN_CLASS
+
+}
@@ -1,16 +1,25 @@
 package usr.skyswimmer.quicktoolsutils.events;
 
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 
 /**
- * Simple plain event that can be bound to
+ * Simple plain event that can be bound to<br/>
+ * <br/>
+ * Handlers are kept in a immutable array that is swapped on change, so
+ * dispatching never locks or allocates
  * 
  * @param <T> Event object to pass to handlers
  */
 public class Event<T extends EventObject> {
 
-	private ArrayList<Consumer<T>> listeners = new ArrayList<Consumer<T>>();
+	private static final Consumer<?>[] EMPTY = new Consumer<?>[0];
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Event, Consumer[]> LISTENERS = AtomicReferenceFieldUpdater
+			.newUpdater(Event.class, Consumer[].class, "listeners");
+
+	private volatile Consumer<?>[] listeners = EMPTY;
 
 	/**
 	 * Adds event handlers
@@ -19,9 +28,15 @@ public class Event<T extends EventObject> {
 	 */
 	public void addEventHandler(Consumer<T> eventHandler) {
 		// Register
-		synchronized (listeners) {
-			if (!listeners.contains(eventHandler))
-				listeners.add(eventHandler);
+		while (true) {
+			Consumer<?>[] current = listeners;
+			if (indexOf(current, eventHandler) != -1)
+				return;
+			Consumer<?>[] newListeners = new Consumer<?>[current.length + 1];
+			System.arraycopy(current, 0, newListeners, 0, current.length);
+			newListeners[current.length] = eventHandler;
+			if (LISTENERS.compareAndSet(this, current, newListeners))
+				return;
 		}
 	}
 
@@ -31,13 +46,33 @@ public class Event<T extends EventObject> {
 	 * @param eventHandler Event handler to add
 	 */
 	public void removeEventHandler(Consumer<T> eventHandler) {
-		// Add listener
-		synchronized (listeners) {
-			if (listeners.contains(eventHandler))
-				listeners.remove(eventHandler);
+		// Remove listener
+		while (true) {
+			Consumer<?>[] current = listeners;
+			int i = indexOf(current, eventHandler);
+			if (i == -1)
+				return;
+			Consumer<?>[] newListeners = EMPTY;
+			if (current.length != 1) {
+				newListeners = new Consumer<?>[current.length - 1];
+				System.arraycopy(current, 0, newListeners, 0, i);
+				System.arraycopy(current, i + 1, newListeners, i, current.length - i - 1);
+			}
+			if (LISTENERS.compareAndSet(this, current, newListeners))
+				return;
 		}
 	}
 
+	/**
+	 * Checks if the event has any handlers, callers can use this to skip creating
+	 * event objects nobody would receive
+	 * 
+	 * @return True if handlers are present, false otherwise
+	 */
+	public boolean hasListeners() {
+		return listeners.length != 0;
+	}
+
 	/**
 	 * Calls the event
 	 * 
@@ -46,15 +81,21 @@ public class Event<T extends EventObject> {
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void dispatchEvent(T event) {
 		// Dispatch event
-		Consumer<T>[] events;
-		synchronized (this.listeners) {
-			events = (Consumer<T>[]) this.listeners.toArray(t -> new Consumer<?>[t]);
-		}
-		for (Consumer ev : events) {
-			ev.accept(event);
+		// Arrays are never modified after publishing
+		Consumer[] events = listeners;
+		for (int i = 0; i < events.length; i++) {
+			events[i].accept(event);
 			if (event.isHandled())
 				break;
 		}
 	}
 
+	private static int indexOf(Consumer<?>[] listeners, Object eventHandler) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i].equals(eventHandler))
+				return i;
+		}
+		return -1;
+	}
+
 }
@@ -1,13 +1,30 @@
 package usr.skyswimmer.quicktoolsutils.events;
 
+import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import usr.skyswimmer.quicktoolsutils.common.ObjectStorageContainer;
 import usr.skyswimmer.quicktoolsutils.events.impl.EventBusImpl;
+import usr.skyswimmer.quicktoolsutils.events.metrics.EventListenerMetrics;
+import usr.skyswimmer.quicktoolsutils.events.pipeline.BackpressurePolicy;
+import usr.skyswimmer.quicktoolsutils.events.pipeline.BoundedDispatchQueue;
+import usr.skyswimmer.quicktoolsutils.events.pipeline.EventPipeline;
+import usr.skyswimmer.quicktoolsutils.events.pipeline.PipelineWaitStrategy;
 import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+import usr.skyswimmer.quicktoolsutils.tasks.async.VirtualThreadSupport;
+import usr.skyswimmer.quicktoolsutils.tasks.scheduling.ScheduledTask;
+import usr.skyswimmer.quicktoolsutils.tasks.scheduling.TaskScheduler;
 
 /**
  * 
@@ -20,6 +37,18 @@ public abstract class EventBus extends ObjectStorageContainer {
 
 	protected static EventBus instance = new EventBusImpl();
 	private HashMap<Function<? extends SupplierEventObject<?>, ?>, Consumer<? extends EventObject>> handlers = new HashMap<Function<? extends SupplierEventObject<?>, ?>, Consumer<? extends EventObject>>();
+	private volatile EventPipeline asyncPipeline;
+	private volatile EventPipeline[] affinityLanes;
+	private AtomicInteger nextLane = new AtomicInteger();
+	private Object coalescingLock = new Object();
+	private LinkedHashMap<CoalescingKey, EventObject> pendingCoalesced = new LinkedHashMap<CoalescingKey, EventObject>();
+	private TaskScheduler coalescingScheduler;
+	private ScheduledTask coalescingTask;
+	private ConcurrentHashMap<Class<?>, EventPool<?>> eventPools = new ConcurrentHashMap<Class<?>, EventPool<?>>();
+	private volatile int eventPoolSize = 64;
+	private volatile boolean eventPoolDebug;
+	private volatile boolean virtualThreadDispatch;
+	private ConcurrentHashMap<Class<?>, BoundedDispatchQueue> boundedQueues = new ConcurrentHashMap<Class<?>, BoundedDispatchQueue>();
 
 	/**
 	 * Retrieves the active event bus
@@ -48,6 +77,57 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 */
 	public abstract <T extends EventObject> void removeEventHandler(Class<T> eventClass, Consumer<T> eventHandler);
 
+	/**
+	 * Adds keyed event handlers, keyed handlers only receive events whose routing
+	 * key equals the given key and are found through a hash lookup instead of
+	 * being checked for every event
+	 * 
+	 * @param <T>          Event type
+	 * @param eventClass   Event class
+	 * @param key          Routing key to subscribe to
+	 * @param eventHandler Event handler to add
+	 */
+	public abstract <T extends EventObject> void addEventHandler(Class<T> eventClass, Object key,
+			Consumer<T> eventHandler);
+
+	/**
+	 * Removes keyed event handlers
+	 * 
+	 * @param <T>          Event type
+	 * @param eventClass   Event class
+	 * @param key          Routing key the handler was subscribed to
+	 * @param eventHandler Event handler to remove
+	 */
+	public abstract <T extends EventObject> void removeEventHandler(Class<T> eventClass, Object key,
+			Consumer<T> eventHandler);
+
+	/**
+	 * Adds topic event handlers, topic handlers receive events whose topic matches
+	 * a wildcard pattern such as {@code player.*.join}, along with the text
+	 * captured by each wildcard. Topics are split into segments on '.', a
+	 * {@code *} segment matches one segment and a trailing {@code **} segment
+	 * matches all remaining segments. Matching handlers run in the order they
+	 * were added, until one marks the event as handled.
+	 * 
+	 * @param <T>          Event type
+	 * @param eventClass   Event class (subtypes are included)
+	 * @param pattern      Topic pattern to subscribe to
+	 * @param eventHandler Event handler to add
+	 */
+	public abstract <T extends EventObject> void addTopicHandler(Class<T> eventClass, String pattern,
+			BiConsumer<T, String[]> eventHandler);
+
+	/**
+	 * Removes topic event handlers
+	 * 
+	 * @param <T>          Event type
+	 * @param eventClass   Event class
+	 * @param pattern      Topic pattern the handler was subscribed to
+	 * @param eventHandler Event handler to remove
+	 */
+	public abstract <T extends EventObject> void removeTopicHandler(Class<T> eventClass, String pattern,
+			BiConsumer<T, String[]> eventHandler);
+
 	/**
 	 * Adds event handlers
 	 * 
@@ -91,6 +171,15 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 */
 	public abstract void addAllEventsFromReceiver(IEventReceiver receiver);
 
+	/**
+	 * Subscribes all events in a IEventReceiver object
+	 * 
+	 * @param receiver IEventReceiver to add
+	 * @param weak     True to only weakly reference the receiver, weak receivers are
+	 *                 automatically unsubscribed after being garbage collected
+	 */
+	public abstract void addAllEventsFromReceiver(IEventReceiver receiver, boolean weak);
+
 	/**
 	 * Removes all subscribed events from a IEventReceiver object
 	 * 
@@ -98,6 +187,16 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 */
 	public abstract void removeAllEventsFromReceiver(IEventReceiver receiver);
 
+	/**
+	 * Removes all subscribed events from several IEventReceiver objects at once
+	 * 
+	 * @param receivers IEventReceivers to remove
+	 */
+	public void removeAllEventsFromReceivers(Iterable<? extends IEventReceiver> receivers) {
+		for (IEventReceiver receiver : receivers)
+			removeAllEventsFromReceiver(receiver);
+	}
+
 	/**
 	 * Dispatches an event
 	 * 
@@ -132,9 +231,9 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 * @param event Event to dispatch
 	 */
 	public AsyncTask<Void> dispatchEventAsync(EventObject event) {
-		return AsyncTask.runAsync(() -> {
+		return runAsync(event, AsyncTask.createTask(() -> {
 			dispatchEvent(event);
-		});
+		}));
 	}
 
 	/**
@@ -143,10 +242,10 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 * @param event Event to dispatch
 	 */
 	public <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchEventAsync(T event) {
-		return AsyncTask.runAsync(() -> {
+		return runAsync(event, AsyncTask.createTask(() -> {
 			dispatchEvent((EventObject) event);
 			return event.getResult();
-		});
+		}));
 	}
 
 	/**
@@ -156,10 +255,10 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 * @param callback Method to call once dispatching finishes
 	 */
 	public <T extends EventObject> AsyncTask<Void> dispatchEventAsync(T event, Consumer<T> callback) {
-		return AsyncTask.runAsync(() -> {
+		return runAsync(event, AsyncTask.createTask(() -> {
 			dispatchEvent((EventObject) event);
 			callback.accept(event);
-		});
+		}));
 	}
 
 	/**
@@ -170,18 +269,724 @@ public abstract class EventBus extends ObjectStorageContainer {
 	 */
 	public <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchEventAsync(T event,
 			BiConsumer<T, T2> callback) {
-		return AsyncTask.runAsync(() -> {
+		return runAsync(event, AsyncTask.createTask(() -> {
 			dispatchEvent((EventObject) event);
 			callback.accept(event, event.getResult());
 			return event.getResult();
+		}));
+	}
+
+	/**
+	 * Posts an event for asynchronous dispatch without tracking its completion,
+	 * when the async pipeline is enabled this does not allocate
+	 * 
+	 * @param event Event to dispatch
+	 */
+	public void postEvent(EventObject event) {
+		if (!boundedQueues.isEmpty() && boundedQueues.containsKey(event.getClass())) {
+			dispatchEventAsync(event);
+			return;
+		}
+		EventPipeline pipeline = getAsyncPipeline(event);
+		if (pipeline != null && !useVirtualThread(event.getClass()))
+			pipeline.post(event);
+		else
+			dispatchEventAsync(event);
+	}
+
+	/**
+	 * Enables the async event pipeline, asynchronous dispatches of this bus are
+	 * then run by dedicated consumer threads instead of the global async task
+	 * threads
+	 * 
+	 * @param capacity        Pipeline capacity, producers block while the
+	 *                        pipeline is full
+	 * @param consumerThreads Amount of consumer threads
+	 * @param batchSize       Maximum amount of events a consumer claims at once
+	 * @param waitStrategy    Wait strategy for consumers and blocked producers
+	 */
+	public void enableAsyncPipeline(int capacity, int consumerThreads, int batchSize,
+			PipelineWaitStrategy waitStrategy) {
+		EventPipeline old = asyncPipeline;
+		asyncPipeline = new EventPipeline(this, capacity, consumerThreads, batchSize, waitStrategy);
+		if (old != null)
+			old.shutdown();
+	}
+
+	/**
+	 * Disables the async event pipeline, events still in the pipeline are
+	 * dispatched before its consumer threads exit
+	 */
+	public void disableAsyncPipeline() {
+		EventPipeline old = asyncPipeline;
+		asyncPipeline = null;
+		if (old != null)
+			old.shutdown();
+	}
+
+	/**
+	 * Retrieves the async event pipeline
+	 * 
+	 * @return EventPipeline instance or null if not enabled
+	 */
+	public EventPipeline getAsyncPipeline() {
+		return asyncPipeline;
+	}
+
+	/**
+	 * Creates the affinity lanes of a sharded bus, each lane is a single-threaded
+	 * pipeline so events with the same affinity key are dispatched in order
+	 * 
+	 * @param lanes        Amount of lanes
+	 * @param laneCapacity Capacity of each lane
+	 */
+	protected void createAffinityLanes(int lanes, int laneCapacity) {
+		if (lanes <= 0)
+			throw new IllegalArgumentException("Lane count must be positive");
+		if (!boundedQueues.isEmpty())
+			throw new IllegalStateException("Affinity lanes cannot be used with bounded async dispatch");
+		EventPipeline[] pipelines = new EventPipeline[lanes];
+		for (int i = 0; i < lanes; i++)
+			pipelines[i] = new EventPipeline(this, laneCapacity, 1, 64, PipelineWaitStrategy.BLOCK);
+		affinityLanes = pipelines;
+	}
+
+	/**
+	 * Closes the affinity lanes of a sharded bus, events still in the lanes are
+	 * dispatched before the lane threads exit. Asynchronous dispatches made after
+	 * this call are run by the async pipeline or the global async task threads
+	 * and are no longer ordered by affinity key.
+	 */
+	public void closeAffinityLanes() {
+		EventPipeline[] lanes = affinityLanes;
+		affinityLanes = null;
+		if (lanes != null) {
+			for (EventPipeline lane : lanes)
+				lane.shutdown();
+		}
+	}
+
+	/**
+	 * Retrieves the affinity lanes of this bus, use
+	 * {@link EventPipeline#getQueueDepth()} to observe lane depth
+	 * 
+	 * @return Array of lane pipelines or null if this is not a sharded bus
+	 */
+	public EventPipeline[] getAffinityLanes() {
+		EventPipeline[] lanes = affinityLanes;
+		if (lanes == null)
+			return null;
+		return lanes.clone();
+	}
+
+	private EventPipeline getAsyncPipeline(EventObject event) {
+		EventPipeline[] lanes = affinityLanes;
+		if (lanes == null)
+			return asyncPipeline;
+
+		// Select lane
+		Object key = event.getAffinityKey();
+		if (key == null)
+			return lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)];
+		int hash = key.hashCode() * 0x9E3779B9;
+		return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+	}
+
+	/**
+	 * Runs a task for a event on the async pipeline of the event or the global
+	 * async task threads
+	 * 
+	 * @param <T>   Task result type
+	 * @param event Event the task belongs to
+	 * @param task  Task to run
+	 * @return AsyncTask instance
+	 */
+	protected <T> AsyncTask<T> runAsync(EventObject event, AsyncTask<T> task) {
+		if (!boundedQueues.isEmpty()) {
+			BoundedDispatchQueue queue = boundedQueues.get(event.getClass());
+			if (queue != null)
+				return queue.submit(event, task);
+		}
+		return runAsyncUnbounded(event, task);
+	}
+
+	/**
+	 * Runs a task for a event on the async pipeline of the event or the global
+	 * async task threads, bypassing bounded dispatch queues so the task is never
+	 * coalesced, rejected or run on the calling thread
+	 * 
+	 * @param <T>   Task result type
+	 * @param event Event the task belongs to
+	 * @param task  Task to run
+	 * @return AsyncTask instance
+	 */
+	protected <T> AsyncTask<T> runAsyncUnbounded(EventObject event, AsyncTask<T> task) {
+		EventPipeline pipeline = getAsyncPipeline(event);
+		if (pipeline != null && !useVirtualThread(event.getClass()))
+			return AsyncTask.runOn(task, pipeline);
+		if (virtualThreadDispatch)
+			return VirtualThreadSupport.runVirtual(task);
+		return AsyncTask.runAsync(task);
+	}
+
+	private boolean useVirtualThread(Class<?> eventClass) {
+		// Affinity lanes keep events in order, only the plain pipeline is bypassed
+		return virtualThreadDispatch && affinityLanes == null && hasBlockingListeners(eventClass);
+	}
+
+	/**
+	 * Checks if a event type has listeners marked {@link EventListener#blocking()
+	 * blocking}
+	 * 
+	 * @param eventClass Event class
+	 * @return True if blocking listeners are present, false otherwise
+	 */
+	protected abstract boolean hasBlockingListeners(Class<?> eventClass);
+
+	/**
+	 * Enables or disables virtual thread dispatch, async dispatches without a
+	 * pipeline, and async dispatches of event types with
+	 * {@link EventListener#blocking() blocking} listeners, then run on virtual
+	 * threads. Synchronous dispatches always run on the calling thread. Has no
+	 * effect if the runtime does not support virtual threads.
+	 * 
+	 * @param enable True to enable virtual thread dispatch, false to disable
+	 * @return True if virtual thread dispatch is active, false otherwise
+	 */
+	public boolean setVirtualThreadDispatch(boolean enable) {
+		virtualThreadDispatch = enable && VirtualThreadSupport.isSupported();
+		return virtualThreadDispatch;
+	}
+
+	/**
+	 * Checks if virtual thread dispatch is active
+	 * 
+	 * @return True if active, false otherwise
+	 */
+	public boolean isVirtualThreadDispatch() {
+		return virtualThreadDispatch;
+	}
+
+	/**
+	 * Bounds the async dispatch of a event type, dispatches of that type are
+	 * queued up to the given capacity and run in order by a single worker. Not
+	 * supported on sharded buses.
+	 * 
+	 * @param eventClass Event class
+	 * @param capacity   Maximum amount of pending dispatches
+	 * @param policy     Policy for dispatches submitted while the queue is full
+	 * @return BoundedDispatchQueue instance
+	 * @throws IllegalStateException If this is a sharded bus
+	 */
+	public BoundedDispatchQueue enableBoundedAsyncDispatch(Class<? extends EventObject> eventClass, int capacity,
+			BackpressurePolicy policy) {
+		return enableBoundedAsyncDispatch(eventClass, capacity, 1, policy);
+	}
+
+	/**
+	 * Bounds the async dispatch of a event type, dispatches of that type are
+	 * queued up to the given capacity and run by a limited amount of workers on
+	 * the async pipeline or the global async task threads.<br/>
+	 * <br/>
+	 * Not supported on sharded buses, bounded workers would bypass the affinity
+	 * lanes and break the per-key ordering.
+	 * 
+	 * @param eventClass Event class
+	 * @param capacity   Maximum amount of pending dispatches
+	 * @param workers    Maximum amount of dispatches of the type running at once
+	 * @param policy     Policy for dispatches submitted while the queue is full
+	 * @return BoundedDispatchQueue instance
+	 * @throws IllegalStateException If this is a sharded bus
+	 */
+	public BoundedDispatchQueue enableBoundedAsyncDispatch(Class<? extends EventObject> eventClass, int capacity,
+			int workers, BackpressurePolicy policy) {
+		if (affinityLanes != null)
+			throw new IllegalStateException("Bounded async dispatch cannot be used on sharded event buses");
+		BoundedDispatchQueue queue = new BoundedDispatchQueue(eventClass, capacity, workers, policy, r -> {
+			EventPipeline pipeline = asyncPipeline;
+			if (pipeline != null && !useVirtualThread(eventClass))
+				pipeline.execute(r);
+			else if (virtualThreadDispatch)
+				VirtualThreadSupport.getExecutor().execute(r);
+			else
+				AsyncTask.runAsync(r);
+		});
+		boundedQueues.put(eventClass, queue);
+		return queue;
+	}
+
+	/**
+	 * Removes the async dispatch bound of a event type, already queued dispatches
+	 * still run
+	 * 
+	 * @param eventClass Event class
+	 */
+	public void disableBoundedAsyncDispatch(Class<? extends EventObject> eventClass) {
+		boundedQueues.remove(eventClass);
+	}
+
+	/**
+	 * Retrieves the bounded dispatch queue of a event type, use
+	 * {@link BoundedDispatchQueue#getQueueDepth()} and
+	 * {@link BoundedDispatchQueue#getRejectedCount()} to observe overload
+	 * 
+	 * @param eventClass Event class
+	 * @return BoundedDispatchQueue instance or null if the type is not bounded
+	 */
+	public BoundedDispatchQueue getBoundedDispatchQueue(Class<? extends EventObject> eventClass) {
+		return boundedQueues.get(eventClass);
+	}
+
+	/**
+	 * Dispatches several events at once, events are grouped by type and the
+	 * listeners of each type are resolved once per group. Each listener receives
+	 * all events of a group in order before the next listener runs, events that
+	 * were handled are skipped by the remaining listeners. EventListener methods
+	 * that accept a {@code List} of events receive each group in a single call.
+	 * 
+	 * @param events Events to dispatch
+	 */
+	public abstract void dispatchAll(Collection<? extends EventObject> events);
+
+	/**
+	 * Dispatches a event to all listeners in parallel, the listeners are split in
+	 * chunks that run on the parallel dispatch pool and the calling thread.
+	 * Listeners run concurrently and are not stopped by handled events, cancellable
+	 * and supplier events are dispatched in order instead.
+	 * 
+	 * @param event Event to dispatch
+	 */
+	public void dispatchEventParallel(EventObject event) {
+		dispatchEventParallel(event, -1);
+	}
+
+	/**
+	 * Dispatches a event to all listeners in parallel, the listeners are split in
+	 * chunks that run on the parallel dispatch pool and the calling thread.
+	 * Listeners run concurrently and are not stopped by handled events, cancellable
+	 * and supplier events are dispatched in order instead.
+	 * 
+	 * @param event   Event to dispatch
+	 * @param timeout Maximum time to wait for all listeners in milliseconds, -1 to
+	 *                wait indefinitely
+	 * @return True if all listeners completed before the deadline, false if some
+	 *         are still running in the background
+	 */
+	public abstract boolean dispatchEventParallel(EventObject event, long timeout);
+
+	/**
+	 * Dispatches a supplier event to all its listeners concurrently, the first
+	 * non-null result wins and listeners that have not started yet are skipped.
+	 * Keyed and topic listeners run in order as a single concurrent listener. The
+	 * event keeps its first result until every started listener has returned.
+	 * Listeners run on virtual threads if supported, otherwise on a dedicated
+	 * cached thread pool, as suppliers commonly block on lookups.
+	 * 
+	 * @param <T2>  Result type
+	 * @param <T>   Event type
+	 * @param event Event to dispatch
+	 * @return AsyncTask instance that completes with the first result, or null if
+	 *         no listener supplied one
+	 */
+	public abstract <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchFirstResult(T event);
+
+	/**
+	 * Dispatches a supplier event to all its listeners concurrently on the given
+	 * executor, the first non-null result wins and listeners that have not
+	 * started yet are skipped. Keyed and topic listeners run in order as a single
+	 * concurrent listener.
+	 * 
+	 * @param <T2>     Result type
+	 * @param <T>      Event type
+	 * @param event    Event to dispatch
+	 * @param executor Executor to run the listeners on, needs a thread per
+	 *                 listener for blocking listeners to run concurrently
+	 * @return AsyncTask instance that completes with the first result, or null if
+	 *         no listener supplied one
+	 */
+	public abstract <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchFirstResult(T event,
+			Executor executor);
+
+	/**
+	 * Selects whether {@link #dispatchEvent(EventObject)} fans out events of a
+	 * specific type in parallel, see {@link #dispatchEventParallel(EventObject)}
+	 * 
+	 * @param eventClass Event class
+	 * @param parallel   True to dispatch in parallel, false to dispatch in order
+	 */
+	public abstract void setParallelDispatch(Class<? extends EventObject> eventClass, boolean parallel);
+
+	/**
+	 * Checks if events of a specific type are dispatched in parallel
+	 * 
+	 * @param eventClass Event class
+	 * @return True if dispatched in parallel, false otherwise
+	 */
+	public abstract boolean isParallelDispatch(Class<? extends EventObject> eventClass);
+
+	/**
+	 * Assigns the pool used for parallel dispatch, defaults to the common
+	 * ForkJoinPool
+	 * 
+	 * @param pool ForkJoinPool instance
+	 */
+	public abstract void setParallelDispatchPool(ForkJoinPool pool);
+
+	/**
+	 * Assigns the listener metrics collector, dispatches sampled by the collector
+	 * time each listener and record its latency and exceptions. Metrics are
+	 * disabled by default. Only regular listeners run by
+	 * {@link #dispatchEvent(EventObject)} are measured, see
+	 * {@link EventListenerMetrics} for the dispatch paths that are not recorded.
+	 * 
+	 * @param metrics EventListenerMetrics instance, null to disable metrics
+	 */
+	public abstract void setListenerMetrics(EventListenerMetrics metrics);
+
+	/**
+	 * Retrieves the listener metrics collector
+	 * 
+	 * @return EventListenerMetrics instance or null if metrics are disabled
+	 */
+	public abstract EventListenerMetrics getListenerMetrics();
+
+	/**
+	 * Dispatches a event with a time budget, see
+	 * {@link #dispatchEventUntil(EventObject, long) dispatchEventUntil}
+	 * 
+	 * @param event  Event to dispatch
+	 * @param budget Time budget
+	 * @param unit   Time unit of the budget
+	 * @return True if all listeners ran before the deadline, false otherwise
+	 */
+	public boolean dispatchEventWithin(EventObject event, long budget, TimeUnit unit) {
+		return dispatchEventUntil(event, System.nanoTime() + unit.toNanos(budget));
+	}
+
+	/**
+	 * Dispatches a event until a deadline, listeners still pending once the
+	 * deadline passed are skipped, or run asynchronously when they are marked
+	 * {@link EventListener#spillable() spillable}. Listeners that were demoted
+	 * for going over the listener budget always run asynchronously during
+	 * deadline dispatches.
+	 * 
+	 * @param event         Event to dispatch
+	 * @param deadlineNanos Deadline as a {@link System#nanoTime()} value
+	 * @return True if all listeners ran before the deadline, false otherwise
+	 */
+	public abstract boolean dispatchEventUntil(EventObject event, long deadlineNanos);
+
+	/**
+	 * Assigns the per-listener budget of deadline dispatches, listeners going
+	 * over the budget several times in a row are demoted to async
+	 * 
+	 * @param budgetNanos Listener budget in nanoseconds, -1 to disable demotion
+	 * @param demoteAfter Amount of consecutive overruns before a listener is
+	 *                    demoted
+	 */
+	public abstract void setListenerBudget(long budgetNanos, int demoteAfter);
+
+	/**
+	 * Restores all demoted listeners to synchronous dispatch
+	 */
+	public abstract void restoreDemotedListeners();
+
+	/**
+	 * Retrieves the amount of listeners currently demoted to async
+	 * 
+	 * @return Demoted listener count
+	 */
+	public abstract int getDemotedListeners();
+
+	/**
+	 * Retrieves the amount of listener invocations skipped by deadline
+	 * dispatches
+	 * 
+	 * @return Skipped listener count
+	 */
+	public abstract long getDeadlineSkippedListeners();
+
+	/**
+	 * Retrieves the amount of listener invocations moved to async by deadline
+	 * dispatches, including demoted listeners
+	 * 
+	 * @return Spilled listener count
+	 */
+	public abstract long getDeadlineSpilledListeners();
+
+	/**
+	 * Posts a event for coalesced dispatch, events with a coalescing key are held
+	 * until the next flush and replace (or merge with) any pending event of the
+	 * same type and key, events without a coalescing key are dispatched right
+	 * away
+	 * 
+	 * @param event Event to post
+	 */
+	public void postCoalesced(EventObject event) {
+		Object key = event.getCoalescingKey();
+		if (key == null) {
+			dispatchEvent(event);
+			return;
+		}
+
+		// Replace or merge pending event
+		CoalescingKey k = new CoalescingKey(event.getClass(), key);
+		synchronized (coalescingLock) {
+			EventObject pending = pendingCoalesced.get(k);
+			pendingCoalesced.put(k, pending == null ? event : event.coalesce(pending));
+		}
+	}
+
+	/**
+	 * Dispatches all pending coalesced events
+	 */
+	public void flushCoalescedEvents() {
+		LinkedHashMap<CoalescingKey, EventObject> pending;
+		synchronized (coalescingLock) {
+			if (pendingCoalesced.isEmpty())
+				return;
+			pending = pendingCoalesced;
+			pendingCoalesced = new LinkedHashMap<CoalescingKey, EventObject>();
+		}
+		dispatchAll(pending.values());
+	}
+
+	/**
+	 * Retrieves the amount of coalesced events waiting for the next flush
+	 * 
+	 * @return Pending coalesced event count
+	 */
+	public int getPendingCoalescedEvents() {
+		synchronized (coalescingLock) {
+			return pendingCoalesced.size();
+		}
+	}
+
+	/**
+	 * Flushes coalesced events once per tick of a task scheduler
+	 * 
+	 * @param scheduler Task scheduler to flush on
+	 * @return ScheduledTask instance of the flush task
+	 */
+	public ScheduledTask enableCoalescing(TaskScheduler scheduler) {
+		disableCoalescing();
+		ScheduledTask task = scheduler.repeat(this::flushCoalescedEvents);
+		synchronized (coalescingLock) {
+			coalescingScheduler = scheduler;
+			coalescingTask = task;
+		}
+		return task;
+	}
+
+	/**
+	 * Flushes coalesced events on a task scheduler once per window
+	 * 
+	 * @param scheduler Task scheduler to flush on
+	 * @param windowMs  Coalescing window in milliseconds
+	 * @return ScheduledTask instance of the flush task
+	 */
+	public ScheduledTask enableCoalescing(TaskScheduler scheduler, long windowMs) {
+		disableCoalescing();
+		ScheduledTask task = scheduler.intervalMs(this::flushCoalescedEvents, windowMs);
+		synchronized (coalescingLock) {
+			coalescingScheduler = scheduler;
+			coalescingTask = task;
+		}
+		return task;
+	}
+
+	/**
+	 * Stops flushing coalesced events on the task scheduler and dispatches any
+	 * pending events
+	 */
+	public void disableCoalescing() {
+		synchronized (coalescingLock) {
+			if (coalescingTask == null)
+				return;
+			coalescingScheduler.cancel(coalescingTask);
+			coalescingScheduler = null;
+			coalescingTask = null;
+		}
+		flushCoalescedEvents();
+	}
+
+	/**
+	 * Retrieves the event pool of a event type, creating it with the public
+	 * no-argument constructor of the type if needed
+	 * 
+	 * @param <T>        Event type
+	 * @param eventClass Event class
+	 * @return EventPool instance
+	 */
+	public <T extends EventObject> EventPool<T> getEventPool(Class<T> eventClass) {
+		return getEventPool(eventClass, () -> {
+			try {
+				return eventClass.getConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Unable to create pooled event of type " + eventClass.getTypeName(), e);
+			}
 		});
 	}
 
 	/**
-	 * Creates a new event bus
+	 * Retrieves the event pool of a event type, creating it if needed
+	 * 
+	 * @param <T>        Event type
+	 * @param eventClass Event class
+	 * @param factory    Factory used to create new events if the pool does not
+	 *                   exist yet
+	 * @return EventPool instance
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends EventObject> EventPool<T> getEventPool(Class<T> eventClass, Supplier<T> factory) {
+		return (EventPool<T>) eventPools.computeIfAbsent(eventClass, t -> {
+			EventPool<T> pool = new EventPool<T>(factory, eventPoolSize);
+			pool.setUseAfterReleaseDetection(eventPoolDebug);
+			return pool;
+		});
+	}
+
+	/**
+	 * Borrows a event from the pool of its type, dispatches it and returns it to
+	 * the pool, in steady state this allocates no event objects
+	 * 
+	 * @param <T>         Event type
+	 * @param eventClass  Event class
+	 * @param initializer Initializer assigning the event fields before dispatch
+	 */
+	public <T extends EventObject> void dispatchPooled(Class<T> eventClass, Consumer<T> initializer) {
+		EventPool<T> pool = getEventPool(eventClass);
+		T event = pool.acquire();
+		try {
+			initializer.accept(event);
+			dispatchEvent(event);
+		} finally {
+			pool.release(event);
+		}
+	}
+
+	/**
+	 * Assigns the per-thread size of event pools created after this call
+	 * 
+	 * @param size Maximum amount of free events kept per thread and type
+	 */
+	public void setEventPoolSize(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("Pool size cannot be negative");
+		eventPoolSize = size;
+	}
+
+	/**
+	 * Enables or disables use after release detection for all event pools of
+	 * this bus, released events are no longer recycled while enabled
+	 * 
+	 * @param detect True to enable detection, false to disable
+	 */
+	public void setEventPoolDebug(boolean detect) {
+		eventPoolDebug = detect;
+		for (EventPool<?> pool : eventPools.values())
+			pool.setUseAfterReleaseDetection(detect);
+	}
+
+	private static class CoalescingKey {
+		private Class<?> type;
+		private Object key;
+
+		public CoalescingKey(Class<?> type, Object key) {
+			this.type = type;
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return type.hashCode() * 31 + key.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CoalescingKey))
+				return false;
+			CoalescingKey other = (CoalescingKey) obj;
+			return other.type == type && other.key.equals(key);
+		}
+	}
+
+	/**
+	 * Creates a new event bus, events dispatched to the new bus reach the listeners
+	 * of this bus first and stop at the first listener that handles them
 	 * 
 	 * @return New EventBus instance
 	 */
 	public abstract EventBus createBus();
 
+	/**
+	 * Creates a new sharded event bus, asynchronous dispatches are routed to one
+	 * of several single-threaded lanes by the event affinity key so events with
+	 * the same key are dispatched in order while unrelated keys run in parallel.
+	 * Each lane owns a thread, use {@link #closeAffinityLanes()} to stop them once
+	 * the bus is no longer needed. Bounded async dispatch cannot be enabled on
+	 * sharded buses.
+	 * 
+	 * @param lanes        Amount of lanes, usually the amount of cores
+	 * @param laneCapacity Capacity of each lane, posting to a full lane blocks
+	 * @return New EventBus instance
+	 */
+	public abstract EventBus createShardedBus(int lanes, int laneCapacity);
+
+	/**
+	 * Selects the dispatcher backend used for receivers registered after this
+	 * call, buses created with {@link #createBus()} inherit the backend of their
+	 * parent
+	 * 
+	 * @param backend Dispatcher backend to use
+	 */
+	public abstract void setDispatcherBackend(DispatcherBackend backend);
+
+	/**
+	 * Retrieves the dispatcher backend used for new receiver registrations
+	 * 
+	 * @return DispatcherBackend value
+	 */
+	public abstract DispatcherBackend getDispatcherBackend();
+
+	/**
+	 * Enables or disables hierarchy dispatch, when enabled, listeners of an event
+	 * type also receive events of its subtypes, in the order they were registered
+	 * 
+	 * @param hierarchyDispatch True to dispatch to supertype listeners, false to
+	 *                          only dispatch to listeners of the exact event type
+	 */
+	public abstract void setHierarchyDispatch(boolean hierarchyDispatch);
+
+	/**
+	 * Checks if hierarchy dispatch is enabled
+	 * 
+	 * @return True if supertype listeners receive events, false otherwise
+	 */
+	public abstract boolean isHierarchyDispatch();
+
+	/**
+	 * Assigns the directory used to persist generated dispatcher bytecode across
+	 * restarts, the cache is shared by all event buses and only used by the ASM
+	 * dispatcher backend
+	 * 
+	 * @param directory Cache directory, null to disable the cache
+	 */
+	public abstract void setDispatcherCacheDirectory(File directory);
+
+	/**
+	 * Retrieves the amount of dispatchers loaded from the dispatcher cache
+	 * 
+	 * @return Cache hit count
+	 */
+	public abstract long getDispatcherCacheHits();
+
+	/**
+	 * Retrieves the amount of dispatchers that had to be generated because they
+	 * were not in the dispatcher cache
+	 * 
+	 * @return Cache miss count
+	 */
+	public abstract long getDispatcherCacheMisses();
+
 }
@@ -9,7 +9,10 @@ import java.lang.annotation.Target;
 /**
  * 
  * An annotation used to mark a method as EventListener, the arguments will need
- * to contain a EventObject for this to work
+ * to contain a EventObject for this to work. Methods accepting a {@code List}
+ * of a EventObject type are batch listeners, they receive all events of a
+ * {@link EventBus#dispatchAll(java.util.Collection) dispatchAll} call in one
+ * list and single events wrapped in a list.
  * 
  * @author Sky Swimmer
  *
@@ -17,4 +20,23 @@ import java.lang.annotation.Target;
 @Retention(RUNTIME)
 @Target(METHOD)
 public @interface EventListener {
+
+	/**
+	 * Defines if the listener may be moved to the async pool when a deadline
+	 * dispatch runs out of time before reaching it, instead of being skipped
+	 * 
+	 * @return True if spillable, false otherwise
+	 */
+	public boolean spillable() default false;
+
+	/**
+	 * Defines if the listener blocks (eg. on I/O), async dispatches of event types
+	 * with blocking listeners run on a virtual thread instead of a pipeline
+	 * thread when virtual thread dispatch is enabled on the event bus.
+	 * Synchronous dispatches still run blocking listeners on the calling thread.
+	 * 
+	 * @return True if blocking, false otherwise
+	 */
+	public boolean blocking() default false;
+
 }
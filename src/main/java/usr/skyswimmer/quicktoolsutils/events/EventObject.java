@@ -10,6 +10,9 @@ package usr.skyswimmer.quicktoolsutils.events;
 public abstract class EventObject {
 
 	private boolean handled = false;
+	// Only set with use after release detection, plain so accessors stay cheap
+	boolean released;
+	volatile boolean pooled;
 
 	/**
 	 * Checks if the event has been marked as handled
@@ -24,9 +27,31 @@ public abstract class EventObject {
 	 * Marks the event as handled
 	 */
 	public void setHandled() {
+		if (released)
+			checkNotReleased();
 		handled = true;
 	}
 
+	/**
+	 * Resets the event object before it is returned to its {@link EventPool},
+	 * subclasses holding state need to override this and call the super method
+	 */
+	protected void reset() {
+		handled = false;
+	}
+
+	/**
+	 * Checks if the event object has been released to a pool with use after
+	 * release detection, subclasses can call this from their accessors
+	 * 
+	 * @throws IllegalStateException If the event object has been released
+	 */
+	protected void checkNotReleased() {
+		if (released)
+			throw new IllegalStateException(
+					"Event object " + getClass().getTypeName() + " used after being released to its pool");
+	}
+
 	/**
 	 * Called when the event object has been registered
 	 * 
@@ -35,4 +60,59 @@ public abstract class EventObject {
 	public void onRegister(EventBus bus) {
 	}
 
+	/**
+	 * Retrieves the affinity key of this event, sharded event buses dispatch
+	 * events with equal keys in order on the same lane
+	 * 
+	 * @return Affinity key (eg. a player or session id) or null to let the bus
+	 *         pick any lane
+	 */
+	public Object getAffinityKey() {
+		return null;
+	}
+
+	/**
+	 * Retrieves the coalescing key of this event, events posted through
+	 * {@link EventBus#postCoalesced(EventObject) postCoalesced} with equal types
+	 * and keys are merged until the next flush
+	 * 
+	 * @return Coalescing key (eg. a entity id) or null to dispatch right away
+	 */
+	public Object getCoalescingKey() {
+		return null;
+	}
+
+	/**
+	 * Retrieves the routing key of this event, keyed event handlers only receive
+	 * events with a matching key, they run after the regular handlers of the event
+	 * type
+	 * 
+	 * @return Routing key (eg. a entity id) or null to skip keyed handlers
+	 */
+	public Object getRoutingKey() {
+		return null;
+	}
+
+	/**
+	 * Retrieves the topic of this event, topic event handlers receive events with
+	 * a topic matching their pattern after the keyed handlers have run
+	 * 
+	 * @return Topic string (eg. {@code player.42.join}) or null to skip topic
+	 *         handlers
+	 */
+	public String getTopic() {
+		return null;
+	}
+
+	/**
+	 * Called when this event is posted while a event with the same coalescing key
+	 * is pending, the default implementation replaces the pending event
+	 * 
+	 * @param pending Pending event of the same type and coalescing key
+	 * @return Event to keep pending
+	 */
+	public EventObject coalesce(EventObject pending) {
+		return this;
+	}
+
 }
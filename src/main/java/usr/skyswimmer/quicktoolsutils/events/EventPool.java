@@ -0,0 +1,139 @@
+package usr.skyswimmer.quicktoolsutils.events;
+
+import java.util.function.Supplier;
+
+/**
+ *
+ * Pool of reusable event objects of a single type, each thread keeps its own
+ * bounded stack of free events so borrowing and releasing never lock. Events
+ * are reset with {@link EventObject#reset()} when released.<br/>
+ * <br/>
+ * Only release events after a synchronous dispatch has returned, events handed
+ * to async, coalesced or parallel dispatch are still in use after the call.
+ * Releasing a event twice always throws a IllegalStateException. With use
+ * after release detection enabled, released events are also marked and never
+ * recycled, so any later use of their accessors throws a
+ * IllegalStateException. {@link EventObject#isHandled()} is not checked as
+ * dispatch calls it for every listener.
+ *
+ * @author Sky Swimmer
+ *
+ * @param <T> Event type
+ */
+public class EventPool<T extends EventObject> {
+
+	private Supplier<T> factory;
+	private int maxSize;
+	private volatile boolean detectUseAfterRelease;
+
+	private ThreadLocal<FreeStack> free = new ThreadLocal<FreeStack>() {
+
+		@Override
+		protected FreeStack initialValue() {
+			return new FreeStack(maxSize);
+		}
+
+	};
+
+	private static class FreeStack {
+		public EventObject[] items;
+		public int size;
+
+		public FreeStack(int maxSize) {
+			items = new EventObject[maxSize];
+		}
+	}
+
+	/**
+	 * Creates a event pool
+	 *
+	 * @param factory Factory creating new event objects
+	 * @param maxSize Maximum amount of free events kept per thread
+	 */
+	public EventPool(Supplier<T> factory, int maxSize) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("Pool size cannot be negative");
+		this.factory = factory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Borrows a event object from the pool, creating one if the pool of the
+	 * current thread is empty
+	 *
+	 * @return Event object in its reset state
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		FreeStack stack = free.get();
+		if (stack.size == 0)
+			return factory.get();
+		T event = (T) stack.items[--stack.size];
+		stack.items[stack.size] = null;
+		event.pooled = false;
+		return event;
+	}
+
+	/**
+	 * Returns a event object to the pool, the event is reset and must not be used
+	 * by the caller anymore
+	 *
+	 * @param event Event object to release
+	 * @throws IllegalStateException If the event was already released
+	 */
+	public void release(T event) {
+		if (event.pooled)
+			throw new IllegalStateException(
+					"Event object " + event.getClass().getTypeName() + " was already released to its pool");
+		event.pooled = true;
+		event.reset();
+		if (detectUseAfterRelease) {
+			// Keep the event out of the pool so stale references keep failing
+			event.released = true;
+			return;
+		}
+
+		// Add to the free stack of the current thread
+		FreeStack stack = free.get();
+		if (stack.size < stack.items.length)
+			stack.items[stack.size++] = event;
+	}
+
+	/**
+	 * Enables or disables use after release detection, meant for debugging as
+	 * released events are no longer recycled while enabled
+	 *
+	 * @param detect True to enable detection, false to disable
+	 */
+	public void setUseAfterReleaseDetection(boolean detect) {
+		detectUseAfterRelease = detect;
+	}
+
+	/**
+	 * Checks if use after release detection is enabled
+	 *
+	 * @return True if enabled, false otherwise
+	 */
+	public boolean isUseAfterReleaseDetection() {
+		return detectUseAfterRelease;
+	}
+
+	/**
+	 * Retrieves the maximum amount of free events kept per thread
+	 *
+	 * @return Maximum pool size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Retrieves the amount of free events in the pool of the current thread
+	 *
+	 * @return Free event count
+	 */
+	public int getFreeCount() {
+		return free.get().size;
+	}
+
+}
@@ -10,8 +10,9 @@ package usr.skyswimmer.quicktoolsutils.events;
  */
 public abstract class SupplierEventObject<T> extends EventObject {
 
-	private T value;
-	private boolean hasValue;
+	private volatile T value;
+	private volatile boolean hasValue;
+	private volatile boolean keepFirstResult;
 
 	/**
 	 * Checks if a value is present
@@ -19,6 +20,8 @@ public abstract class SupplierEventObject<T> extends EventObject {
 	 * @return True if present, false otherwise
 	 */
 	public boolean hasResult() {
+		if (released)
+			checkNotReleased();
 		return hasValue;
 	}
 
@@ -28,6 +31,8 @@ public abstract class SupplierEventObject<T> extends EventObject {
 	 * @return Result value object
 	 */
 	public T getResult() {
+		if (released)
+			checkNotReleased();
 		return value;
 	}
 
@@ -37,9 +42,50 @@ public abstract class SupplierEventObject<T> extends EventObject {
 	 * @param value Result value to assign
 	 */
 	public void setResult(T value) {
+		if (released)
+			checkNotReleased();
+		if (keepFirstResult) {
+			// Listeners may be racing, only the first result counts
+			synchronized (this) {
+				if (hasValue)
+					return;
+				this.value = value;
+				hasValue = true;
+			}
+			setHandled();
+			return;
+		}
 		this.value = value;
 		hasValue = true;
 		setHandled();
 	}
 
+	/**
+	 * Selects whether the event keeps the first result assigned to it and ignores
+	 * any later result, used while supplier listeners run concurrently
+	 * 
+	 * @param keep True to keep the first result, false to let later results
+	 *             replace it
+	 */
+	public void setKeepFirstResult(boolean keep) {
+		keepFirstResult = keep;
+	}
+
+	/**
+	 * Checks if the event keeps the first result assigned to it
+	 * 
+	 * @return True if later results are ignored, false otherwise
+	 */
+	public boolean isKeepFirstResult() {
+		return keepFirstResult;
+	}
+
+	@Override
+	protected void reset() {
+		super.reset();
+		value = null;
+		hasValue = false;
+		keepFirstResult = false;
+	}
+
 }
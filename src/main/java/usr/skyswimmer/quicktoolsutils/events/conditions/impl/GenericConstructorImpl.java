@@ -17,6 +17,11 @@ public class GenericConstructorImpl implements IEventConditionConstructor {
 
 	private static HashMap<String, IGenericEventCondition> conditions = new HashMap<String, IGenericEventCondition>();
 
+	@Override
+	public boolean isStaticPerListener() {
+		return true;
+	}
+
 	@Override
 	public IGenericEventCondition construct(IEventReceiver receiverType, Method listener, EventObject event,
 			Annotation annotation, EventBus bus) {
@@ -9,12 +9,23 @@ import usr.skyswimmer.quicktoolsutils.events.IEventReceiver;
 
 public interface IEventConditionConstructor {
 
+	/**
+	 * Indicates if the conditions created by this constructor are static per
+	 * listener, static conditions are constructed once when the listener is
+	 * registered (with a null event object) instead of on every dispatch
+	 * 
+	 * @return True if the condition only depends on the listener, false otherwise
+	 */
+	public default boolean isStaticPerListener() {
+		return false;
+	}
+
 	/**
 	 * Called to construct event conditions
 	 * 
 	 * @param receiverType Receiver type
 	 * @param listener     Event listener method
-	 * @param event        Event object
+	 * @param event        Event object, null for static per-listener conditions
 	 * @param annotation   Annotation that was used to add the condition
 	 * @param bus          The event bus that is registering the listener
 	 * @return IGenericEventCondition instance
@@ -1,26 +1,65 @@
 package usr.skyswimmer.quicktoolsutils.events.impl;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
 
+import usr.skyswimmer.quicktoolsutils.events.CancellableEventObject;
+import usr.skyswimmer.quicktoolsutils.events.DispatcherBackend;
 import usr.skyswimmer.quicktoolsutils.events.EventBus;
 import usr.skyswimmer.quicktoolsutils.events.EventListener;
 import usr.skyswimmer.quicktoolsutils.events.EventObject;
@@ -28,218 +67,381 @@ import usr.skyswimmer.quicktoolsutils.events.IEventReceiver;
 import usr.skyswimmer.quicktoolsutils.events.SupplierEventObject;
 import usr.skyswimmer.quicktoolsutils.events.conditions.EventConditionConstructor;
 import usr.skyswimmer.quicktoolsutils.events.conditions.RepeatableTarget;
+import usr.skyswimmer.quicktoolsutils.events.conditions.interfaces.IEventCondition;
 import usr.skyswimmer.quicktoolsutils.events.conditions.interfaces.IEventConditionConstructor;
 import usr.skyswimmer.quicktoolsutils.events.conditions.interfaces.IGenericEventCondition;
 import usr.skyswimmer.quicktoolsutils.events.impl.asm.BinaryClassLoader;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.IEventDispatchChain;
 import usr.skyswimmer.quicktoolsutils.events.impl.asm.IEventDispatcher;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.IEventDispatcherIndex;
 import usr.skyswimmer.quicktoolsutils.events.impl.asm.IStaticEventDispatcher;
 import usr.skyswimmer.quicktoolsutils.events.impl.asm.IStaticSupplierEventDispatcher;
 import usr.skyswimmer.quicktoolsutils.events.impl.asm.ISupplierEventDispatcher;
+import usr.skyswimmer.quicktoolsutils.events.metrics.EventListenerMetrics;
+import usr.skyswimmer.quicktoolsutils.events.metrics.ListenerMetrics;
+import usr.skyswimmer.quicktoolsutils.io.HashUtils;
+import usr.skyswimmer.quicktoolsutils.patterns.WildcardPatternIndex;
+import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+import usr.skyswimmer.quicktoolsutils.tasks.async.VirtualThreadSupport;
 
 public class EventBusImpl extends EventBus {
 
-	private EventBus parent;
+	private EventBusImpl parent;
+	private int depth;
+	private DispatcherBackend backend = DispatcherBackend.ASM;
 	private Logger eventLog = LogManager.getLogger("EVENTBUS");
 
-	private ArrayList<String> loadedEvents = new ArrayList<String>();
-	private HashMap<String, ArrayList<Consumer<?>>> listeners = new HashMap<String, ArrayList<Consumer<?>>>();
-	private ArrayList<String> loadedStaticEventListeners = new ArrayList<String>();
-	private ArrayList<IEventReceiver> boundReceivers = new ArrayList<IEventReceiver>();
+	private Object registryLock = new Object();
+	private volatile long version;
+	private long nextSequence;
+	private volatile boolean hierarchyDispatch;
+	private volatile boolean keyedListeners;
+	private volatile boolean topicListeners;
+	private volatile ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+	private volatile EventListenerMetrics listenerMetrics;
+	private volatile long listenerBudget = -1;
+	private volatile int demoteAfter;
+	private Set<EventContainerListener> demotedListeners = ConcurrentHashMap.newKeySet();
+	private AtomicLong deadlineSkips = new AtomicLong();
+	private AtomicLong deadlineSpills = new AtomicLong();
+	private WildcardPatternIndex<TopicSubscription> topics = new WildcardPatternIndex<TopicSubscription>('.');
+	private ConcurrentHashMap<Class<?>, EventListenerSlot> listeners = new ConcurrentHashMap<Class<?>, EventListenerSlot>();
+	private static final ReferenceQueue<IEventReceiver> collectedReceivers = new ReferenceQueue<IEventReceiver>();
+	private static Thread receiverSweeper;
+	private static ExecutorService firstResultExecutor;
+
+	private HashMap<String, StaticListenerRef> staticListeners = new HashMap<String, StaticListenerRef>();
+	private IdentityHashMap<IEventReceiver, ReceiverSubscription> boundReceivers = new IdentityHashMap<IEventReceiver, ReceiverSubscription>();
+	private HashMap<ReceiverReference, ReceiverSubscription> weakReceivers = new HashMap<ReceiverReference, ReceiverSubscription>();
 
 	private static BinaryClassLoader binLoader = new BinaryClassLoader(EventBusImpl.class.getClassLoader());
+	private static final String DISPATCHER_CACHE_FORMAT = "1";
 	private static HashMap<String, IStaticEventDispatcher> staticDispatchers = new HashMap<String, IStaticEventDispatcher>();
 	private static HashMap<String, IEventDispatcher> objDispatchers = new HashMap<String, IEventDispatcher>();
 	private static HashMap<String, IStaticSupplierEventDispatcher> staticSupDispatchers = new HashMap<String, IStaticSupplierEventDispatcher>();
 	private static HashMap<String, ISupplierEventDispatcher> objSupDispatchers = new HashMap<String, ISupplierEventDispatcher>();
 
+	private static HashMap<String, Class<IEventDispatchChain>> dispatchChains = new HashMap<String, Class<IEventDispatchChain>>();
+
+	private static final int CHAIN_COMPILE_THRESHOLD = 1000;
+	private static final int CHAIN_MAX_LISTENERS = 64;
+
 	private static HashMap<String, IEventConditionConstructor> conditionCtors = new HashMap<String, IEventConditionConstructor>();
 
-	private class EventCondData {
+	private static ClassValue<ListenerPlan[]> receiverPlans = new ClassValue<ListenerPlan[]>() {
+
+		@Override
+		protected ListenerPlan[] computeValue(Class<?> type) {
+			return createPlan(type);
+		}
+
+	};
+	private static ClassValue<String> classHashes = new ClassValue<String>() {
+
+		@Override
+		protected String computeValue(Class<?> type) {
+			return hashClass(type);
+		}
+
+	};
+	private static ClassValue<IEventDispatcherIndex> dispatcherIndexes = new ClassValue<IEventDispatcherIndex>() {
+
+		@Override
+		protected IEventDispatcherIndex computeValue(Class<?> type) {
+			return findDispatcherIndex(type);
+		}
+
+	};
+
+	private static class EventCondData {
 		public IEventConditionConstructor ctor;
 		public Annotation anno;
 	}
 
-	@SuppressWarnings("unchecked")
+	private static class ListenerPlan {
+		public Method method;
+		public Class<?> eventType;
+		public boolean isStatic;
+		public boolean supplier;
+		public boolean batch;
+		public boolean spillable;
+		public boolean blocking;
+		public String staticPath;
+		public ArrayList<EventCondData> conditions = new ArrayList<EventCondData>();
+
+		public Object precompiledDispatcher;
+		public volatile Object asmDispatcher;
+		public volatile Object hiddenDispatcher;
+	}
+
+	private static class ListenerCondition {
+		public IGenericEventCondition condition;
+		public EventCondData data;
+	}
+
 	@Override
 	public void addAllEventsFromReceiver(IEventReceiver receiver) {
+		addAllEventsFromReceiver(receiver, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void addAllEventsFromReceiver(IEventReceiver receiver, boolean weak) {
 		// Check
+		ReceiverSubscription sub = new ReceiverSubscription();
+		ReceiverReference reference = weak ? new ReceiverReference(this, receiver, collectedReceivers) : null;
 		synchronized (boundReceivers) {
-			if (boundReceivers.contains(receiver))
+			if (boundReceivers.containsKey(receiver) || weakReceivers.containsKey(new ReceiverReference(receiver)))
 				return;
-			boundReceivers.add(receiver);
+			if (weak)
+				weakReceivers.put(reference, sub);
+			else
+				boundReceivers.put(receiver, sub);
 		}
+		if (weak)
+			startReceiverSweeper();
+
+		// Weak subscriptions only reach the receiver through the reference
+		IEventReceiver strong = weak ? null : receiver;
 
 		// Log subscription
 		eventLog.info("Registering all events in " + receiver.getClass().getTypeName() + "...");
 
-		// Loop through the class and register events
-		try {
-			// Preload
-			binLoader.loadClass(receiver.getClass().getTypeName());
-		} catch (ClassNotFoundException e) {
-		}
-		for (Method meth : receiver.getClass().getMethods()) {
-			if (meth.isAnnotationPresent(EventListener.class) && Modifier.isPublic(meth.getModifiers())
-					&& !Modifier.isAbstract(meth.getModifiers())) {
-				// Find the event object
-				if (meth.getParameterCount() == 1 && EventObject.class.isAssignableFrom(meth.getParameterTypes()[0])) {
-					// Find event path
-					Class<?> eventType = meth.getParameterTypes()[0];
-					if (EventObject.class.isAssignableFrom(eventType)) {
-						// Check if static
-						if (Modifier.isStatic(meth.getModifiers())) {
-							String stPth = receiver.getClass().getTypeName() + "_" + meth.getName();
-							synchronized (loadedStaticEventListeners) {
-								// Check if the static event listener is already loaded, if it is, skip this
-								// event listener to prevent duplicate registration of static event listeners
-								if (!loadedStaticEventListeners.contains(stPth))
-									loadedStaticEventListeners.add(stPth);
-								else
-									continue;
-							}
-						}
+		// Bind the registration plan of the receiver type
+		ListenerPlan[] plans = receiverPlans.get(receiver.getClass());
+		EventContainerListener[] created = new EventContainerListener[plans.length];
+		for (int i = 0; i < plans.length; i++) {
+			ListenerPlan plan = plans[i];
+			Method meth = plan.method;
+			Class<?> eventType = plan.eventType;
+
+			// Resolve conditions
+			ListenerCondition[] conditions = resolveConditions(plan.isStatic ? null : receiver, meth, eventType,
+					plan.conditions);
+
+			// Create listener
+			EventContainerListener l = new EventContainerListener();
+			l.owner = strong;
+			l.plan = plan;
+			l.receiverType = receiver.getClass();
+			l.method = meth;
+			l.eventType = eventType;
+			l.direct = conditions.length == 0 && !plan.batch;
+
+			// Check if batch
+			if (plan.batch) {
+				// Batch listeners are called once per batch so they are invoked through
+				// reflection instead of a generated dispatcher
+				l.batch = true;
+				l.batchDelegate = events -> {
+					// Find receiver
+					IEventReceiver r = null;
+					if (!plan.isStatic) {
+						r = strong != null ? strong : reference.get();
+						if (r == null)
+							return;
+					}
 
-						try {
-							// Preload
-							binLoader.loadClass(eventType.getTypeName());
-						} catch (ClassNotFoundException e) {
+					// Go through conditions
+					List<EventObject> accepted = events;
+					if (conditions.length != 0) {
+						accepted = new ArrayList<EventObject>(events.size());
+						for (EventObject event : events) {
+							if (matchConditions(conditions, r, meth, event))
+								accepted.add(event);
 						}
+						if (accepted.isEmpty())
+							return;
+						accepted = Collections.unmodifiableList(accepted);
+					}
 
-						// Make accessible
-						meth.setAccessible(true);
-
-						// Find all conditions
-						ArrayList<EventCondData> conditionCtors = new ArrayList<EventCondData>();
-						findConditions(meth, conditionCtors);
-
-						// Add listener
-						String path = eventType.getTypeName();
-						boolean toLoad = false;
-						synchronized (loadedEvents) {
-							if (!loadedEvents.contains(path)) {
-								loadedEvents.add(path);
-								toLoad = true;
-							}
-						}
-						if (toLoad) {
-							// Load event
-							EventObject ev = null;
-							try {
-								ev = (EventObject) eventType.getConstructor().newInstance();
-							} catch (Exception e) {
-							}
-							if (ev != null)
-								ev.onRegister(this);
+					// Dispatch
+					try {
+						meth.invoke(r, accepted);
+					} catch (InvocationTargetException e) {
+						if (e.getCause() instanceof RuntimeException)
+							throw (RuntimeException) e.getCause();
+						if (e.getCause() instanceof Error)
+							throw (Error) e.getCause();
+						throw new RuntimeException(e.getCause());
+					} catch (IllegalAccessException e) {
+						throw new RuntimeException(e);
+					}
+				};
+				l.delegate = t -> l.batchDelegate.accept(Collections.singletonList((EventObject) t));
+			} else if (!plan.supplier) {
+				// Get dispatcher
+				if (!plan.isStatic) {
+					// Regular
+					IEventDispatcher disp = (IEventDispatcher) getPlanDispatcher(plan, receiver.getClass());
+					l.delegate = t -> {
+						// Find receiver
+						IEventReceiver r = strong != null ? strong : reference.get();
+						if (r == null)
+							return;
+
+						// Go through conditions
+						if (!matchConditions(conditions, r, meth, (EventObject) t))
+							return;
+
+						// Dispatch
+						disp.dispatch(r, (EventObject) t);
+					};
+				} else {
+					// Static
+					IStaticEventDispatcher disp = (IStaticEventDispatcher) getPlanDispatcher(plan,
+							receiver.getClass());
+					l.delegate = t -> {
+						// Go through conditions
+						if (!matchConditions(conditions, null, meth, (EventObject) t))
+							return;
+
+						// Dispatch
+						disp.dispatch((EventObject) t);
+					};
+				}
+			} else {
+				// Get dispatcher
+				if (!plan.isStatic) {
+					// Regular
+					ISupplierEventDispatcher disp = (ISupplierEventDispatcher) getPlanDispatcher(plan,
+							receiver.getClass());
+					l.delegate = t -> {
+						// Find receiver
+						IEventReceiver r = strong != null ? strong : reference.get();
+						if (r == null)
+							return;
+
+						// Go through conditions
+						if (!matchConditions(conditions, r, meth, (EventObject) t))
+							return;
+
+						// Dispatch
+						@SuppressWarnings("rawtypes")
+						SupplierEventObject e = (SupplierEventObject<?>) t;
+						Object ret = disp.dispatch(r, e);
+						if (ret != null) {
+							e.setResult(ret);
 						}
-						synchronized (listeners) {
-							ArrayList<Consumer<?>> events = new ArrayList<Consumer<?>>();
-							if (listeners.containsKey(path))
-								events = new ArrayList<Consumer<?>>(listeners.get(path));
-							EventContainerListener l = new EventContainerListener();
-							l.owner = receiver;
-
-							// Check if supplier
-							if (!SupplierEventObject.class.isAssignableFrom(eventType)) {
-								// Get dispatcher
-								if (!Modifier.isStatic(meth.getModifiers())) {
-									// Regular
-									IEventDispatcher disp = getDispatcher(receiver.getClass(), meth, eventType);
-									l.delegate = t -> {
-										// Go through conditions
-										for (EventCondData cond : conditionCtors) {
-											IGenericEventCondition condition = cond.ctor.construct(receiver, meth,
-													(EventObject) t, cond.anno, EventBusImpl.this);
-											if (!condition.match(receiver, meth, (EventObject) t))
-												return;
-										}
-
-										// Dispatch
-										disp.dispatch(receiver, (EventObject) t);
-									};
-								} else {
-									// Static
-									IStaticEventDispatcher disp = getStaticDispatcher(receiver.getClass(), meth,
-											eventType);
-									l.delegate = t -> {
-										// Go through conditions
-										for (EventCondData cond : conditionCtors) {
-											IGenericEventCondition condition = cond.ctor.construct(null, meth,
-													(EventObject) t, cond.anno, EventBusImpl.this);
-											if (condition.supportsStatic()
-													&& !condition.match(null, meth, (EventObject) t))
-												return;
-										}
-
-										// Dispatch
-										disp.dispatch((EventObject) t);
-									};
-								}
-							} else {
-								// Get dispatcher
-								if (!Modifier.isStatic(meth.getModifiers())) {
-									// Regular
-									ISupplierEventDispatcher disp = getSupplierDispatcher(receiver.getClass(), meth,
-											eventType);
-									l.delegate = t -> {
-										// Go through conditions
-										for (EventCondData cond : conditionCtors) {
-											IGenericEventCondition condition = cond.ctor.construct(receiver, meth,
-													(EventObject) t, cond.anno, EventBusImpl.this);
-											if (!condition.match(receiver, meth, (EventObject) t))
-												return;
-										}
-
-										// Dispatch
-										@SuppressWarnings("rawtypes")
-										SupplierEventObject e = (SupplierEventObject<?>) t;
-										Object ret = disp.dispatch(receiver, e);
-										if (ret != null) {
-											e.setResult(ret);
-										}
-									};
-								} else {
-									// Static
-									IStaticSupplierEventDispatcher disp = getStaticSupplierDispatcher(
-											receiver.getClass(), meth, eventType);
-									l.delegate = t -> {
-										// Go through conditions
-										for (EventCondData cond : conditionCtors) {
-											IGenericEventCondition condition = cond.ctor.construct(null, meth,
-													(EventObject) t, cond.anno, EventBusImpl.this);
-											if (condition.supportsStatic()
-													&& !condition.match(null, meth, (EventObject) t))
-												return;
-										}
-
-										// Dispatch
-										@SuppressWarnings("rawtypes")
-										SupplierEventObject e = (SupplierEventObject<?>) t;
-										Object ret = disp.dispatch(e);
-										if (ret != null) {
-											e.setResult(ret);
-										}
-									};
-								}
-							}
-							eventLog.debug("Attaching event handler " + receiver.getClass().getTypeName() + ":"
-									+ meth.getName() + " to event " + eventType.getTypeName());
-							events.add(l);
-							listeners.put(path, events);
+					};
+				} else {
+					// Static
+					IStaticSupplierEventDispatcher disp = (IStaticSupplierEventDispatcher) getPlanDispatcher(plan,
+							receiver.getClass());
+					l.delegate = t -> {
+						// Go through conditions
+						if (!matchConditions(conditions, null, meth, (EventObject) t))
+							return;
+
+						// Dispatch
+						@SuppressWarnings("rawtypes")
+						SupplierEventObject e = (SupplierEventObject<?>) t;
+						Object ret = disp.dispatch(e);
+						if (ret != null) {
+							e.setResult(ret);
 						}
-					}
+					};
 				}
 			}
+
+			// Load event
+			loadEvent(eventType);
+			l.slot = getSlot(eventType);
+			created[i] = l;
+		}
+
+		// Add listeners
+		synchronized (registryLock) {
+			// Check if the receiver was removed in the meantime
+			if (sub.removed)
+				return;
+
+			ArrayList<EventContainerListener> attached = new ArrayList<EventContainerListener>(created.length);
+			ArrayList<String> staticPaths = new ArrayList<String>();
+			for (EventContainerListener l : created) {
+				if (l.plan.isStatic) {
+					// Check if the static event listener is already loaded, if it is, skip this
+					// event listener to prevent duplicate registration of static event listeners
+					staticPaths.add(l.plan.staticPath);
+					StaticListenerRef ref = staticListeners.get(l.plan.staticPath);
+					if (ref != null) {
+						ref.refs++;
+						continue;
+					}
+					ref = new StaticListenerRef();
+					ref.listener = l;
+					ref.refs = 1;
+					staticListeners.put(l.plan.staticPath, ref);
+				} else
+					attached.add(l);
+				if (eventLog.isDebugEnabled())
+					eventLog.debug("Attaching event handler " + receiver.getClass().getTypeName() + ":"
+							+ l.plan.method.getName() + " to event " + l.plan.eventType.getTypeName());
+				attachListener(l.slot, l);
+			}
+			sub.listeners = attached.toArray(t -> new EventContainerListener[t]);
+			sub.staticPaths = staticPaths.toArray(t -> new String[t]);
 		}
 	}
 
-	private void findConditions(Method meth, ArrayList<EventCondData> conditionCtors) {
+	private ListenerCondition[] resolveConditions(IEventReceiver receiver, Method meth, Class<?> eventType,
+			ArrayList<EventCondData> conditionCtors) {
+		ArrayList<ListenerCondition> conditions = new ArrayList<ListenerCondition>();
+		for (EventCondData cond : conditionCtors) {
+			ListenerCondition c = new ListenerCondition();
+			if (cond.ctor.isStaticPerListener()) {
+				// Resolve once, the condition does not depend on the event
+				IGenericEventCondition condition = cond.ctor.construct(receiver, meth, null, cond.anno, this);
+
+				// Static listeners ignore conditions that do not support them
+				if (receiver == null && !condition.supportsStatic())
+					continue;
+
+				// Skip typed conditions that can never apply to this event type, these
+				// always match
+				if (condition instanceof IEventCondition
+						&& !canApply(((IEventCondition<?>) condition).eventType(), eventType))
+					continue;
+				c.condition = condition;
+			} else
+				c.data = cond;
+			conditions.add(c);
+		}
+		return conditions.toArray(t -> new ListenerCondition[t]);
+	}
+
+	private static boolean canApply(Class<?> conditionEventType, Class<?> listenerEventType) {
+		// Events delivered to the listener are instances of the listener event type,
+		// the condition applies if such an instance can also be of the condition type
+		return conditionEventType.isAssignableFrom(listenerEventType)
+				|| listenerEventType.isAssignableFrom(conditionEventType) || (conditionEventType.isInterface()
+						&& !Modifier.isFinal(listenerEventType.getModifiers()));
+	}
+
+	private boolean matchConditions(ListenerCondition[] conditions, IEventReceiver receiver, Method meth,
+			EventObject event) {
+		for (ListenerCondition cond : conditions) {
+			IGenericEventCondition condition = cond.condition;
+			if (condition == null) {
+				// Construct for this event
+				condition = cond.data.ctor.construct(receiver, meth, event, cond.data.anno, this);
+				if (receiver == null && !condition.supportsStatic())
+					continue;
+			}
+			if (!condition.match(receiver, meth, event))
+				return false;
+		}
+		return true;
+	}
+
+	private static void findConditions(Method meth, ArrayList<EventCondData> conditionCtors) {
 		for (Annotation anno : meth.getAnnotations()) {
 			findConditions(meth, anno, conditionCtors);
 		}
 		findConditions(meth.getDeclaringClass(), conditionCtors);
 	}
 
-	private void findConditions(Class<?> target, ArrayList<EventCondData> conditionCtors) {
+	private static void findConditions(Class<?> target, ArrayList<EventCondData> conditionCtors) {
 		for (Annotation anno : target.getAnnotations()) {
 			findConditions(target, anno, conditionCtors);
 		}
@@ -248,7 +450,7 @@ public class EventBusImpl extends EventBus {
 		findConditions(target.getSuperclass(), conditionCtors);
 	}
 
-	private void findConditions(AnnotatedElement parent, Annotation anno, ArrayList<EventCondData> conditionCtors) {
+	private static void findConditions(AnnotatedElement parent, Annotation anno, ArrayList<EventCondData> conditionCtors) {
 		if (anno.annotationType().isAnnotationPresent(RepeatableTarget.class)) {
 			for (Annotation annot : parent
 					.getAnnotationsByType(anno.annotationType().getAnnotation(RepeatableTarget.class).value())) {
@@ -297,209 +499,1411 @@ public class EventBusImpl extends EventBus {
 	@Override
 	public void removeAllEventsFromReceiver(IEventReceiver receiver) {
 		// Check
+		ReceiverSubscription sub;
 		synchronized (boundReceivers) {
-			if (!boundReceivers.contains(receiver))
+			sub = boundReceivers.remove(receiver);
+			if (sub == null)
+				sub = weakReceivers.remove(new ReceiverReference(receiver));
+			if (sub == null)
 				return;
-			boundReceivers.remove(receiver);
 		}
 
 		// Log subscription
 		eventLog.info("De-registering all events in " + receiver.getClass().getTypeName() + "...");
 
-		// Loop through the class and de-register events
-		for (Method meth : receiver.getClass().getMethods()) {
+		// Remove listeners
+		synchronized (registryLock) {
+			unsubscribe(sub, null);
+		}
+	}
+
+	@Override
+	public void removeAllEventsFromReceivers(Iterable<? extends IEventReceiver> receivers) {
+		// Find subscriptions
+		ArrayList<ReceiverSubscription> subs = new ArrayList<ReceiverSubscription>();
+		synchronized (boundReceivers) {
+			for (IEventReceiver receiver : receivers) {
+				ReceiverSubscription sub = boundReceivers.remove(receiver);
+				if (sub == null)
+					sub = weakReceivers.remove(new ReceiverReference(receiver));
+				if (sub != null)
+					subs.add(sub);
+			}
+		}
+		if (subs.isEmpty())
+			return;
+
+		// Log subscription
+		eventLog.info("De-registering all events in " + subs.size() + " receivers...");
+		unsubscribeAll(subs);
+	}
+
+	private void purgeCollectedReceivers(ArrayList<ReceiverReference> refs) {
+		// Find subscriptions
+		ArrayList<ReceiverSubscription> subs = new ArrayList<ReceiverSubscription>();
+		synchronized (boundReceivers) {
+			for (ReceiverReference ref : refs) {
+				ReceiverSubscription sub = weakReceivers.remove(ref);
+				if (sub != null)
+					subs.add(sub);
+			}
+		}
+		if (subs.isEmpty())
+			return;
+
+		// Log
+		eventLog.debug("Purging " + subs.size() + " garbage-collected event receivers...");
+		unsubscribeAll(subs);
+	}
+
+	private void unsubscribeAll(ArrayList<ReceiverSubscription> subs) {
+		// Remove listeners and compact each affected listener array once
+		synchronized (registryLock) {
+			HashSet<EventListenerSlot> slots = new HashSet<EventListenerSlot>();
+			for (ReceiverSubscription sub : subs)
+				unsubscribe(sub, slots);
+			for (EventListenerSlot slot : slots)
+				slot.compact();
+			version++;
+		}
+	}
+
+	private static void startReceiverSweeper() {
+		synchronized (collectedReceivers) {
+			if (receiverSweeper != null)
+				return;
+
+			// Start sweeper
+			receiverSweeper = new Thread(() -> {
+				while (true) {
+					try {
+						// Wait for a collected receiver, then drain whatever else was collected
+						// so that each bus is purged in one batch
+						HashMap<EventBusImpl, ArrayList<ReceiverReference>> batches = new HashMap<EventBusImpl, ArrayList<ReceiverReference>>();
+						Reference<? extends IEventReceiver> ref = collectedReceivers.remove();
+						while (ref != null) {
+							ReceiverReference r = (ReceiverReference) ref;
+							batches.computeIfAbsent(r.bus, t -> new ArrayList<ReceiverReference>()).add(r);
+							ref = collectedReceivers.poll();
+						}
+
+						// Purge
+						for (EventBusImpl bus : batches.keySet())
+							bus.purgeCollectedReceivers(batches.get(bus));
+					} catch (InterruptedException e) {
+						break;
+					} catch (Exception e) {
+						LogManager.getLogger("EVENTBUS").error("Failed to purge garbage-collected event receivers", e);
+					}
+				}
+			}, "Event receiver sweeper");
+			receiverSweeper.setDaemon(true);
+			receiverSweeper.start();
+		}
+	}
+
+	private void unsubscribe(ReceiverSubscription sub, HashSet<EventListenerSlot> slots) {
+		sub.removed = true;
+		if (sub.listeners == null)
+			return;
+
+		// Remove listeners
+		for (EventContainerListener l : sub.listeners)
+			removeListener(l, slots);
+
+		// Release static listeners
+		for (String path : sub.staticPaths) {
+			StaticListenerRef ref = staticListeners.get(path);
+			if (ref != null && --ref.refs == 0) {
+				staticListeners.remove(path);
+				removeListener(ref.listener, slots);
+			}
+		}
+	}
+
+	private void removeListener(EventContainerListener l, HashSet<EventListenerSlot> slots) {
+		if (eventLog.isDebugEnabled())
+			eventLog.debug("Detaching event handler " + l.receiverType.getTypeName() + ":"
+					+ l.plan.method.getName() + " from event " + l.plan.eventType.getTypeName());
+
+		// Mark as removed, the listener is skipped from now on and dropped from the
+		// listener array once enough listeners have been removed
+		l.removed = true;
+		if (l.demoted)
+			demotedListeners.remove(l);
+		l.slot.dead++;
+		l.slot.chain = null;
+		if (slots != null)
+			slots.add(l.slot);
+		else {
+			if (l.slot.dead * 2 > l.slot.listeners.size)
+				l.slot.compact();
+			version++;
+		}
+	}
+
+	private static ListenerPlan[] createPlan(Class<?> receiverType) {
+		// Loop through the class and find event listeners
+		ArrayList<ListenerPlan> plans = new ArrayList<ListenerPlan>();
+		for (Method meth : receiverType.getMethods()) {
 			if (meth.isAnnotationPresent(EventListener.class) && Modifier.isPublic(meth.getModifiers())
 					&& !Modifier.isAbstract(meth.getModifiers())) {
 				// Find the event object
-				if (meth.getParameterCount() == 1 && EventObject.class.isAssignableFrom(meth.getParameterTypes()[0])) {
-					// Find event path
-					Class<?> eventType = meth.getParameterTypes()[0];
-					if (EventObject.class.isAssignableFrom(eventType)) {
-						// Check if static
-						if (Modifier.isStatic(meth.getModifiers())) {
-							String stPth = receiver.getClass().getTypeName() + "_" + meth.getName();
-							synchronized (loadedStaticEventListeners) {
-								// Check if the static event listener is known
-								if (loadedStaticEventListeners.contains(stPth)) {
-									// It is, check if there are any other listeners of the same type
-									boolean found = false;
-									synchronized (boundReceivers) {
-										for (IEventReceiver rec : boundReceivers) {
-											if (meth.getDeclaringClass().isAssignableFrom(rec.getClass())) {
-												found = true;
-												break;
-											}
-										}
-									}
-									if (found) {
-										// Still present
-										// Skip de-registering
-										continue;
-									}
-
-									// De-register
-									loadedStaticEventListeners.remove(stPth);
-								}
-							}
-						}
-
-						// Find listeners
-						meth.setAccessible(true);
-						String path = eventType.getTypeName();
-						if (listeners.containsKey(path)) {
-							synchronized (listeners) {
-								ArrayList<Consumer<?>> events = new ArrayList<Consumer<?>>();
-								if (listeners.containsKey(path))
-									events = new ArrayList<Consumer<?>>(listeners.get(path));
-
-								// Remove
-								Consumer<?>[] evs = events.toArray(t -> new Consumer<?>[t]);
-								for (Consumer<?> ev : evs) {
-									if (ev instanceof EventContainerListener) {
-										EventContainerListener l = (EventContainerListener) ev;
-										if (l.owner == receiver) {
-											eventLog.debug("Detaching event handler "
-													+ receiver.getClass().getTypeName() + ":" + meth.getName()
-													+ " from event " + eventType.getTypeName());
-											events.remove(l);
-										}
-									}
-								}
-
-								listeners.put(path, events);
-							}
-						}
+				Class<?> eventType = null;
+				boolean batch = false;
+				if (meth.getParameterCount() == 1 && EventObject.class.isAssignableFrom(meth.getParameterTypes()[0]))
+					eventType = meth.getParameterTypes()[0];
+				else if (meth.getParameterCount() == 1 && meth.getParameterTypes()[0] == List.class) {
+					// Batch listener, find the element type
+					eventType = getBatchEventType(meth.getGenericParameterTypes()[0]);
+					batch = eventType != null;
+				}
+				if (eventType != null) {
+					// Make accessible
+					meth.setAccessible(true);
+
+					// Create plan
+					ListenerPlan plan = new ListenerPlan();
+					plan.method = meth;
+					plan.eventType = eventType;
+					plan.isStatic = Modifier.isStatic(meth.getModifiers());
+					plan.supplier = SupplierEventObject.class.isAssignableFrom(eventType);
+					plan.batch = batch;
+					plan.spillable = meth.getAnnotation(EventListener.class).spillable();
+					plan.blocking = meth.getAnnotation(EventListener.class).blocking();
+					plan.staticPath = receiverType.getTypeName() + "_" + meth.getName();
+
+					// Use the dispatcher generated at compile time if present
+					IEventDispatcherIndex index = batch ? null : dispatcherIndexes.get(meth.getDeclaringClass());
+					if (index != null) {
+						Object disp = index.getDispatcher(meth.getName(), eventType.getName());
+						if (plan.supplier ? (plan.isStatic ? disp instanceof IStaticSupplierEventDispatcher
+								: disp instanceof ISupplierEventDispatcher)
+								: (plan.isStatic ? disp instanceof IStaticEventDispatcher
+										: disp instanceof IEventDispatcher))
+							plan.precompiledDispatcher = disp;
 					}
 
+					// Find all conditions
+					findConditions(meth, plan.conditions);
+					plans.add(plan);
 				}
 			}
 		}
+		return plans.toArray(t -> new ListenerPlan[t]);
+	}
+
+	private static Class<?> getBatchEventType(Type paramType) {
+		if (!(paramType instanceof ParameterizedType))
+			return null;
+		Type arg = ((ParameterizedType) paramType).getActualTypeArguments()[0];
+		if (arg instanceof WildcardType && ((WildcardType) arg).getLowerBounds().length == 0)
+			arg = ((WildcardType) arg).getUpperBounds()[0];
+		if (arg instanceof ParameterizedType)
+			arg = ((ParameterizedType) arg).getRawType();
+
+		// Supplier events cannot return a result per event from a batch
+		if (!(arg instanceof Class) || !EventObject.class.isAssignableFrom((Class<?>) arg)
+				|| SupplierEventObject.class.isAssignableFrom((Class<?>) arg))
+			return null;
+		return (Class<?>) arg;
+	}
+
+	private static IEventDispatcherIndex findDispatcherIndex(Class<?> type) {
+		if (type.getClassLoader() == null)
+			return null;
+
+		// Find the index generated by the annotation processor
+		String name = type.getName();
+		String pkg = type.getPackageName();
+		name = (pkg.isEmpty() ? "" : pkg + ".")
+				+ (pkg.isEmpty() ? name : name.substring(pkg.length() + 1)).replace('$', '_')
+				+ IEventDispatcherIndex.INDEX_SUFFIX;
+		try {
+			Class<?> indexType = Class.forName(name, true, type.getClassLoader());
+			if (!IEventDispatcherIndex.class.isAssignableFrom(indexType))
+				return null;
+			return (IEventDispatcherIndex) indexType.getConstructor().newInstance();
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		} catch (ReflectiveOperationException e) {
+			LogManager.getLogger("EVENTBUS").warn("Failed to load generated event dispatchers of " + type.getTypeName(),
+					e);
+			return null;
+		}
+	}
+
+	private Object getPlanDispatcher(ListenerPlan plan, Class<?> receiverType) {
+		if (plan.precompiledDispatcher != null)
+			return plan.precompiledDispatcher;
+		boolean hidden = backend == DispatcherBackend.HIDDEN_CLASS;
+		Object disp = hidden ? plan.hiddenDispatcher : plan.asmDispatcher;
+		if (disp != null)
+			return disp;
+
+		// Preload for the ASM backend, the binary class loader keeps every class it
+		// loads so this is skipped for unloadable dispatchers
+		if (!hidden) {
+			try {
+				binLoader.loadClass(receiverType.getTypeName());
+				binLoader.loadClass(plan.eventType.getTypeName());
+			} catch (ClassNotFoundException e) {
+			}
+		}
+
+		// Get dispatcher
+		if (!plan.supplier)
+			disp = plan.isStatic ? getStaticDispatcher(receiverType, plan.method, plan.eventType)
+					: getDispatcher(receiverType, plan.method, plan.eventType);
+		else
+			disp = plan.isStatic ? getStaticSupplierDispatcher(receiverType, plan.method, plan.eventType)
+					: getSupplierDispatcher(receiverType, plan.method, plan.eventType);
+		if (hidden)
+			plan.hiddenDispatcher = disp;
+		else
+			plan.asmDispatcher = disp;
+		return disp;
 	}
 
 	@Override
 	public <T extends EventObject> void addEventHandler(Class<T> eventClass, Consumer<T> eventHandler) {
 		// Load event
-		String path = eventClass.getTypeName();
-		boolean toLoad = false;
-		synchronized (loadedEvents) {
-			if (!loadedEvents.contains(path)) {
-				loadedEvents.add(path);
-				toLoad = true;
+		loadEvent(eventClass);
+
+		// Register
+		EventListenerSlot slot = getSlot(eventClass);
+		synchronized (registryLock) {
+			attachListener(slot, eventHandler);
+			eventLog.debug("Attaching event handler " + eventHandler + " to event " + eventClass.getTypeName());
+		}
+	}
+
+	@Override
+	public <T extends EventObject> void addEventHandler(Class<T> eventClass, Object key, Consumer<T> eventHandler) {
+		// Load event
+		loadEvent(eventClass);
+
+		// Register
+		EventListenerSlot slot = getSlot(eventClass);
+		synchronized (registryLock) {
+			if (slot.keyed == null)
+				slot.keyed = new ConcurrentHashMap<Object, Consumer<?>[]>();
+			Consumer<?>[] evs = slot.keyed.get(key);
+			if (evs == null)
+				evs = new Consumer<?>[] { eventHandler };
+			else {
+				evs = Arrays.copyOf(evs, evs.length + 1);
+				evs[evs.length - 1] = eventHandler;
 			}
+			slot.keyed.put(key, evs);
+			keyedListeners = true;
+			eventLog.debug("Attaching event handler " + eventHandler + " to event " + eventClass.getTypeName()
+					+ " with key " + key);
 		}
-		if (toLoad) {
-			// Load event
-			EventObject ev = null;
-			try {
-				ev = (EventObject) eventClass.getConstructor().newInstance();
-			} catch (Exception e) {
+	}
+
+	@Override
+	public <T extends EventObject> void removeEventHandler(Class<T> eventClass, Object key,
+			Consumer<T> eventHandler) {
+		// Remove listener
+		EventListenerSlot slot = getSlot(eventClass);
+		synchronized (registryLock) {
+			if (slot.keyed == null)
+				return;
+			Consumer<?>[] evs = slot.keyed.get(key);
+			if (evs == null)
+				return;
+			for (int i = 0; i < evs.length; i++) {
+				if (evs[i].equals(eventHandler)) {
+					// Remove from the array of the key
+					if (evs.length == 1)
+						slot.keyed.remove(key);
+					else {
+						Consumer<?>[] newEvs = new Consumer<?>[evs.length - 1];
+						System.arraycopy(evs, 0, newEvs, 0, i);
+						System.arraycopy(evs, i + 1, newEvs, i, evs.length - i - 1);
+						slot.keyed.put(key, newEvs);
+					}
+					eventLog.debug("Detaching event handler " + eventHandler + " from event "
+							+ eventClass.getTypeName() + " with key " + key);
+					return;
+				}
 			}
-			if (ev != null)
-				ev.onRegister(this);
 		}
+	}
+
+	@Override
+	public <T extends EventObject> void addTopicHandler(Class<T> eventClass, String pattern,
+			BiConsumer<T, String[]> eventHandler) {
+		// Load event
+		loadEvent(eventClass);
 
 		// Register
-		synchronized (listeners) {
-			ArrayList<Consumer<?>> events = new ArrayList<Consumer<?>>();
-			if (listeners.containsKey(path))
-				events = new ArrayList<Consumer<?>>(listeners.get(path));
+		TopicSubscription sub = new TopicSubscription();
+		sub.eventType = eventClass;
+		sub.handler = eventHandler;
+		topics.add(pattern, sub);
+		topicListeners = true;
+		eventLog.debug("Attaching event handler " + eventHandler + " to topic " + pattern);
+	}
 
-			events.add(eventHandler);
-			eventLog.debug("Attaching event handler " + eventHandler + " to event " + eventClass.getTypeName());
+	@Override
+	public <T extends EventObject> void removeTopicHandler(Class<T> eventClass, String pattern,
+			BiConsumer<T, String[]> eventHandler) {
+		// Remove listener
+		TopicSubscription sub = new TopicSubscription();
+		sub.eventType = eventClass;
+		sub.handler = eventHandler;
+		if (topics.remove(pattern, sub))
+			eventLog.debug("Detaching event handler " + eventHandler + " from topic " + pattern);
+	}
 
-			listeners.put(path, events);
+	@Override
+	public <T extends EventObject> void removeEventHandler(Class<T> eventClass, Consumer<T> eventHandler) {
+		// Remove listener
+		EventListenerSlot slot = getSlot(eventClass);
+		synchronized (registryLock) {
+			if (detachListener(slot, eventHandler))
+				eventLog.debug("Detaching event handler " + eventHandler + " from event " + eventClass.getTypeName());
 		}
 	}
 
 	@Override
-	public <T extends EventObject> void removeEventHandler(Class<T> eventClass, Consumer<T> eventHandler) {
-		// Add listener
-		String path = eventClass.getTypeName();
-		if (!listeners.containsKey(path))
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void dispatchEvent(EventObject event) {
+		// Find listeners
+		EventListenerSlot slot = getSlot(event.getClass());
+		ListenerArray evs = getDispatchListeners(slot, event.getClass());
+
+		// Check if the event type fans out in parallel
+		if (slot.parallel && canDispatchParallel(event)) {
+			dispatchParallel(event, evs, -1);
 			return;
-		synchronized (listeners) {
-			ArrayList<Consumer<?>> events = new ArrayList<Consumer<?>>();
-			if (listeners.containsKey(path))
-				events = new ArrayList<Consumer<?>>(listeners.get(path));
+		}
+
+		// Use the compiled chain if present
+		CompiledChain compiled = slot.chain;
+		EventListenerMetrics metrics = listenerMetrics;
+		if (metrics != null && evs.size != 0 && metrics.shouldSample())
+			dispatchMeasured(event, evs, metrics);
+		else if (compiled != null && compiled.source == evs && compiled.chain != null)
+			compiled.chain.dispatch(event);
+		else {
+			if ((compiled == null || compiled.source != evs) && evs.size != 0
+					&& slot.dispatches.incrementAndGet() == CHAIN_COMPILE_THRESHOLD) {
+				// Compile a dispatch chain once the event type is hot, only the thread
+				// reaching the threshold compiles
+				compileChain(slot, evs);
+				slot.dispatches.set(0);
+			}
+
+			// Dispatch event
+			// The visible part of a listener array is never modified after publishing,
+			// registration swaps in a new array instead
+			Consumer[] items = evs.items;
+			int size = evs.size;
+			for (int i = 0; i < size; i++) {
+				items[i].accept(event);
+				if (event.isHandled())
+					break;
+			}
+		}
 
-			events.remove(eventHandler);
-			eventLog.debug("Detaching event handler " + eventHandler + " from event " + eventClass.getTypeName());
+		// Dispatch to keyed listeners
+		if (hasKeyedListeners() && !event.isHandled())
+			dispatchKeyed(event);
 
-			listeners.put(path, events);
+		// Dispatch to topic listeners
+		if (hasTopicListeners() && !event.isHandled())
+			dispatchTopic(event);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void dispatchMeasured(EventObject event, ListenerArray evs, EventListenerMetrics metrics) {
+		// Dispatch event, timing each listener
+		Consumer[] items = evs.items;
+		int size = evs.size;
+		for (int i = 0; i < size; i++) {
+			Consumer l = items[i];
+			ListenerMetrics m = getListenerMetrics(metrics, l, event.getClass());
+			boolean failed = true;
+			long start = System.nanoTime();
+			try {
+				l.accept(event);
+				failed = false;
+			} finally {
+				metrics.record(m, System.nanoTime() - start, failed);
+			}
+			if (event.isHandled())
+				break;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static ListenerMetrics getListenerMetrics(EventListenerMetrics metrics, Consumer l,
+			Class<?> eventType) {
+		if (!(l instanceof EventContainerListener))
+			return metrics.getMetrics(l.getClass().getTypeName(), eventType);
+
+		// Cache the metrics on the listener, most listeners only ever see one event
+		// type
+		EventContainerListener container = (EventContainerListener) l;
+		ListenerMetrics m = container.metrics;
+		if (m == null || container.metricsSource != metrics || m.getEventType() != eventType) {
+			m = metrics.getMetrics(container.receiverType.getTypeName() + ":" + container.method.getName(),
+					eventType);
+			container.metrics = m;
+			container.metricsSource = metrics;
 		}
+		return m;
 	}
 
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public void dispatchEvent(EventObject event) {
-		if (parent != null)
-			parent.dispatchEvent(event);
-		if (listeners.containsKey(event.getClass().getTypeName())) {
-			// Dispatch event
-			ArrayList<Consumer<?>> events = this.listeners.get(event.getClass().getTypeName());
-			Consumer<?>[] evs;
-			synchronized (events) {
-				evs = events.toArray(t -> new Consumer<?>[t]);
+	public boolean dispatchEventUntil(EventObject event, long deadlineNanos) {
+		// Find listeners
+		EventListenerSlot slot = getSlot(event.getClass());
+		ListenerArray evs = getDispatchListeners(slot, event.getClass());
+		long budget = listenerBudget;
+
+		// Dispatch event
+		Consumer[] items = evs.items;
+		int size = evs.size;
+		for (int i = 0; i < size; i++) {
+			Consumer l = items[i];
+			EventContainerListener container = l instanceof EventContainerListener ? (EventContainerListener) l
+					: null;
+			if (container != null && container.demoted) {
+				spillListener(event, container);
+				continue;
 			}
-			for (Consumer ev : evs) {
-				ev.accept(event);
-				if (event.isHandled())
+
+			// Check deadline
+			long start = System.nanoTime();
+			if (start - deadlineNanos >= 0) {
+				// Spill or skip the remaining listeners
+				for (int i2 = i; i2 < size; i2++) {
+					if (items[i2] instanceof EventContainerListener
+							&& (((EventContainerListener) items[i2]).plan.spillable
+									|| ((EventContainerListener) items[i2]).demoted))
+						spillListener(event, (EventContainerListener) items[i2]);
+					else
+						deadlineSkips.incrementAndGet();
+				}
+				return false;
+			}
+
+			// Run listener
+			l.accept(event);
+			if (budget != -1 && container != null) {
+				// Demote listeners that keep going over budget
+				if (System.nanoTime() - start <= budget)
+					container.overruns = 0;
+				else if (++container.overruns >= demoteAfter && !container.demoted) {
+					container.demoted = true;
+					demotedListeners.add(container);
+					eventLog.warn("Demoted event listener " + container.receiverType.getTypeName() + ":"
+							+ container.method.getName() + " to async dispatch after " + container.overruns
+							+ " consecutive budget overruns");
+				}
+			}
+			if (event.isHandled())
+				return true;
+		}
+
+		// Dispatch to keyed and topic listeners if time is left
+		if ((hasKeyedListeners() || hasTopicListeners()) && !event.isHandled()) {
+			if (System.nanoTime() - deadlineNanos >= 0) {
+				deadlineSkips.incrementAndGet();
+				return false;
+			}
+			if (hasKeyedListeners())
+				dispatchKeyed(event);
+			if (hasTopicListeners() && !event.isHandled())
+				dispatchTopic(event);
+		}
+		return true;
+	}
+
+	private void spillListener(EventObject event, EventContainerListener l) {
+		// Bypass bounded queues, spills of the same event must not coalesce and must
+		// never run on the deadline-bound caller
+		deadlineSpills.incrementAndGet();
+		runAsyncUnbounded(event, AsyncTask.createTask(() -> {
+			if (!event.isHandled())
+				l.accept(event);
+		}));
+	}
+
+	@Override
+	public void setListenerBudget(long budgetNanos, int demoteAfter) {
+		this.demoteAfter = Math.max(1, demoteAfter);
+		listenerBudget = budgetNanos;
+	}
+
+	@Override
+	public void restoreDemotedListeners() {
+		for (EventContainerListener l : demotedListeners) {
+			l.overruns = 0;
+			l.demoted = false;
+			demotedListeners.remove(l);
+		}
+	}
+
+	@Override
+	public int getDemotedListeners() {
+		return demotedListeners.size();
+	}
+
+	@Override
+	public long getDeadlineSkippedListeners() {
+		return deadlineSkips.get();
+	}
+
+	@Override
+	public long getDeadlineSpilledListeners() {
+		return deadlineSpills.get();
+	}
+
+	@Override
+	public void setListenerMetrics(EventListenerMetrics metrics) {
+		listenerMetrics = metrics;
+	}
+
+	@Override
+	public EventListenerMetrics getListenerMetrics() {
+		return listenerMetrics;
+	}
+
+	private boolean hasTopicListeners() {
+		for (EventBusImpl bus = this; bus != null; bus = bus.parent) {
+			if (bus.topicListeners)
+				return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void dispatchTopic(EventObject event) {
+		String topic = event.getTopic();
+		if (topic == null)
+			return;
+
+		// Parent listeners run first
+		if (parent != null) {
+			parent.dispatchTopic(event);
+			if (event.isHandled())
+				return;
+		}
+
+		// Find listeners with a matching pattern
+		topics.match(topic, (sub, params) -> {
+			if (!event.isHandled() && sub.eventType.isInstance(event))
+				((BiConsumer) sub.handler).accept(event, params);
+		});
+	}
+
+	@Override
+	public boolean dispatchEventParallel(EventObject event, long timeout) {
+		// Ordered events go through the regular dispatch
+		if (!canDispatchParallel(event)) {
+			dispatchEvent(event);
+			return true;
+		}
+
+		// Dispatch
+		ListenerArray evs = getDispatchListeners(getSlot(event.getClass()), event.getClass());
+		return dispatchParallel(event, evs, timeout);
+	}
+
+	@Override
+	public <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchFirstResult(T event) {
+		return dispatchFirstResult(event, getFirstResultExecutor());
+	}
+
+	private static synchronized Executor getFirstResultExecutor() {
+		// Supplier listeners usually block on lookups, so they get their own threads
+		// instead of tying up the common pool
+		ExecutorService virtual = VirtualThreadSupport.getExecutor();
+		if (virtual != null)
+			return virtual;
+		if (firstResultExecutor == null) {
+			firstResultExecutor = Executors.newCachedThreadPool(r -> {
+				Thread th = new Thread(r, "First result dispatch thread");
+				th.setDaemon(true);
+				return th;
+			});
+		}
+		return firstResultExecutor;
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public <T2, T extends SupplierEventObject<T2>> AsyncTask<T2> dispatchFirstResult(T event, Executor executor) {
+		ListenerArray evs = getDispatchListeners(getSlot(event.getClass()), event.getClass());
+		Consumer[] items = evs.items;
+		int size = evs.size;
+
+		// Keyed and topic listeners run together in order, as one more concurrent
+		// listener
+		boolean tail = hasKeyedListeners() || hasTopicListeners();
+		int count = size + (tail ? 1 : 0);
+
+		// The task is handed to whichever listener finishes deciding the result
+		AtomicReference<RuntimeException> error = new AtomicReference<RuntimeException>();
+		AtomicReference<Runnable> completion = new AtomicReference<Runnable>();
+		AsyncTask<T2> task = AsyncTask.runOn(AsyncTask.createTask(() -> {
+			if (!event.hasResult() && error.get() != null)
+				throw error.get();
+			return event.getResult();
+		}), completion::set);
+		if (count == 0) {
+			completion.get().run();
+			return task;
+		}
+
+		// Keep the first result until every listener returned
+		boolean keepFirstResult = event.isKeepFirstResult();
+		event.setKeepFirstResult(true);
+
+		// Run all listeners concurrently
+		AtomicInteger remaining = new AtomicInteger(count);
+		AtomicBoolean done = new AtomicBoolean();
+		for (int i = 0; i < count; i++) {
+			Consumer l = i < size ? items[i] : null;
+			executor.execute(() -> {
+				try {
+					// Listeners that have not started once the result is decided are skipped
+					if (!done.get()) {
+						if (l != null)
+							l.accept(event);
+						else {
+							if (hasKeyedListeners())
+								dispatchKeyed(event);
+							if (hasTopicListeners() && !event.hasResult())
+								dispatchTopic(event);
+						}
+					}
+				} catch (RuntimeException e) {
+					error.compareAndSet(null, e);
+				} finally {
+					// Complete on the first result or once every listener gave up
+					int left = remaining.decrementAndGet();
+					if ((event.hasResult() || left == 0) && done.compareAndSet(false, true)) {
+						try {
+							completion.get().run();
+						} catch (RuntimeException e) {
+							// Stored in the task
+						}
+					}
+					if (left == 0)
+						event.setKeepFirstResult(keepFirstResult);
+				}
+			});
+		}
+		return task;
+	}
+
+	@Override
+	public void setParallelDispatch(Class<? extends EventObject> eventClass, boolean parallel) {
+		getSlot(eventClass).parallel = parallel;
+	}
+
+	@Override
+	public boolean isParallelDispatch(Class<? extends EventObject> eventClass) {
+		return getSlot(eventClass).parallel;
+	}
+
+	@Override
+	public void setParallelDispatchPool(ForkJoinPool pool) {
+		parallelPool = pool;
+	}
+
+	private static boolean canDispatchParallel(EventObject event) {
+		// Cancellable and supplier events depend on listener order
+		return !(event instanceof CancellableEventObject) && !(event instanceof SupplierEventObject);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private boolean dispatchParallel(EventObject event, ListenerArray evs, long timeout) {
+		long deadline = timeout < 0 ? -1 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		Consumer[] items = evs.items;
+		int size = evs.size;
+
+		// Split listeners into chunks, one per worker
+		ForkJoinPool pool = parallelPool;
+		int chunks = Math.min(size, pool.getParallelism() + 1);
+		boolean completed = true;
+		if (chunks > 1) {
+			int chunkSize = (size + chunks - 1) / chunks;
+			ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(chunks - 1);
+			for (int start = chunkSize; start < size; start += chunkSize) {
+				int from = start;
+				int to = Math.min(size, start + chunkSize);
+				tasks.add(pool.submit(() -> {
+					for (int i = from; i < to; i++)
+						items[i].accept(event);
+				}));
+			}
+
+			// Run the first chunk on the calling thread
+			for (int i = 0; i < chunkSize; i++)
+				items[i].accept(event);
+
+			// Wait for the other chunks
+			for (ForkJoinTask<?> task : tasks) {
+				try {
+					if (deadline == -1)
+						task.get();
+					else
+						task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					// Remaining listeners keep running in the background
+					completed = false;
+					break;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					completed = false;
+					break;
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} else {
+			for (int i = 0; i < size; i++)
+				items[i].accept(event);
+		}
+
+		// Keyed and topic listeners run in order on the calling thread
+		if (hasKeyedListeners())
+			dispatchKeyed(event);
+		if (hasTopicListeners())
+			dispatchTopic(event);
+		return completed;
+	}
+
+	private boolean hasKeyedListeners() {
+		for (EventBusImpl bus = this; bus != null; bus = bus.parent) {
+			if (bus.keyedListeners)
+				return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void dispatchKeyed(EventObject event) {
+		Object key = event.getRoutingKey();
+		if (key == null)
+			return;
+
+		// Parent listeners run first
+		if (parent != null) {
+			parent.dispatchKeyed(event);
+			if (event.isHandled())
+				return;
+		}
+
+		// Find listeners for the key
+		ConcurrentHashMap<Object, Consumer<?>[]> index = getSlot(event.getClass()).keyed;
+		if (index == null)
+			return;
+		Consumer[] evs = index.get(key);
+		if (evs == null)
+			return;
+
+		// Dispatch event
+		for (Consumer ev : evs) {
+			ev.accept(event);
+			if (event.isHandled())
+				break;
+		}
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends EventObject> events) {
+		// Group events by type
+		LinkedHashMap<Class<?>, ArrayList<EventObject>> groups = new LinkedHashMap<Class<?>, ArrayList<EventObject>>();
+		Class<?> lastType = null;
+		ArrayList<EventObject> last = null;
+		for (EventObject event : events) {
+			if (event.getClass() != lastType) {
+				lastType = event.getClass();
+				last = groups.computeIfAbsent(lastType, t -> new ArrayList<EventObject>());
+			}
+			last.add(event);
+		}
+
+		// Dispatch groups
+		for (Class<?> eventType : groups.keySet()) {
+			ArrayList<EventObject> group = groups.get(eventType);
+			if (group.size() == 1)
+				dispatchEvent(group.get(0));
+			else
+				dispatchGroup(eventType, group);
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void dispatchGroup(Class<?> eventType, ArrayList<EventObject> events) {
+		// Find listeners
+		EventListenerSlot slot = getSlot(eventType);
+		ListenerArray evs = getDispatchListeners(slot, eventType);
+
+		// Dispatch events
+		// Each listener goes through the whole group before the next listener runs
+		List<EventObject> batch = Collections.unmodifiableList(events);
+		Consumer[] items = evs.items;
+		int size = evs.size;
+		for (int i = 0; i < size; i++) {
+			Consumer l = items[i];
+			if (l instanceof EventContainerListener && ((EventContainerListener) l).batch) {
+				// Leave out events that were handled by an earlier listener
+				EventContainerListener listener = (EventContainerListener) l;
+				if (listener.removed)
+					continue;
+				List<EventObject> pending = batch;
+				for (int i2 = 0; i2 < events.size(); i2++) {
+					if (events.get(i2).isHandled()) {
+						ArrayList<EventObject> unhandled = new ArrayList<EventObject>(events.size());
+						for (EventObject event : events) {
+							if (!event.isHandled())
+								unhandled.add(event);
+						}
+						pending = Collections.unmodifiableList(unhandled);
+						break;
+					}
+				}
+				if (!pending.isEmpty())
+					listener.batchDelegate.accept(pending);
+			} else {
+				for (int i2 = 0; i2 < events.size(); i2++) {
+					EventObject event = events.get(i2);
+					if (!event.isHandled())
+						l.accept(event);
+				}
+			}
+		}
+
+		// Dispatch to keyed listeners
+		if (hasKeyedListeners()) {
+			for (int i = 0; i < events.size(); i++) {
+				EventObject event = events.get(i);
+				if (!event.isHandled())
+					dispatchKeyed(event);
+			}
+		}
+
+		// Dispatch to topic listeners
+		if (hasTopicListeners()) {
+			for (int i = 0; i < events.size(); i++) {
+				EventObject event = events.get(i);
+				if (!event.isHandled())
+					dispatchTopic(event);
+			}
+		}
+	}
+
+	@Override
+	protected boolean hasBlockingListeners(Class<?> eventClass) {
+		EventListenerSlot slot = getSlot(eventClass);
+		ListenerArray evs = getDispatchListeners(slot, eventClass);
+		BlockingListeners blocking = slot.blocking;
+		if (blocking == null || blocking.source != evs) {
+			// Scan the listeners once per listener array
+			blocking = new BlockingListeners();
+			blocking.source = evs;
+			for (int i = 0; i < evs.size; i++) {
+				if (evs.items[i] instanceof EventContainerListener
+						&& ((EventContainerListener) evs.items[i]).plan.blocking
+						&& !isRemoved(evs.items[i])) {
+					blocking.present = true;
+					break;
+				}
+			}
+			slot.blocking = blocking;
+		}
+		return blocking.present;
+	}
+
+	private EventListenerSlot getSlot(Class<?> eventType) {
+		// Slots are kept in a per-bus map, a ClassValue would pin the bus to the event
+		// class through its own listeners
+		EventListenerSlot slot = listeners.get(eventType);
+		if (slot == null)
+			slot = listeners.computeIfAbsent(eventType, t -> new EventListenerSlot());
+		return slot;
+	}
+
+	private ListenerArray getDispatchListeners(EventListenerSlot slot, Class<?> eventType) {
+		if (parent == null)
+			return getLocalListeners(slot, eventType);
+
+		// Use the flattened listeners of this bus and all its parents if none of them
+		// changed since the view was built
+		FlattenedListeners flattened = slot.flattened;
+		if (flattened != null) {
+			EventBusImpl bus = this;
+			long[] stamps = flattened.stamps;
+			for (int i = 0; i < stamps.length; i++) {
+				if (bus.version != stamps[i]) {
+					flattened = null;
 					break;
+				}
+				bus = bus.parent;
+			}
+			if (flattened != null)
+				return flattened.listeners;
+		}
+		return flattenListeners(slot, eventType);
+	}
+
+	private ListenerArray getLocalListeners(EventListenerSlot slot, Class<?> eventType) {
+		if (hierarchyDispatch) {
+			// Use the merged listeners of all supertypes
+			MergedListeners merged = slot.merged;
+			if (merged == null || merged.version != version)
+				merged = mergeListeners(slot, eventType);
+			return merged.listeners;
+		}
+		return slot.listeners;
+	}
+
+	private ListenerArray flattenListeners(EventListenerSlot slot, Class<?> eventType) {
+		// Stamp the versions before collecting, a change made while collecting makes
+		// the view stale right away
+		long[] stamps = new long[depth + 1];
+		EventBusImpl bus = this;
+		for (int i = 0; i < stamps.length; i++) {
+			stamps[i] = bus.version;
+			bus = bus.parent;
+		}
+
+		// Parent listeners run first, then the listeners of this bus
+		ListenerArray inherited = parent.getDispatchListeners(parent.getSlot(eventType), eventType);
+		ListenerArray local = getLocalListeners(slot, eventType);
+		Consumer<?>[] evs = new Consumer<?>[inherited.size + local.size];
+		long[] sequence = new long[evs.length];
+		int size = 0;
+		for (ListenerArray a : new ListenerArray[] { inherited, local }) {
+			for (int i = 0; i < a.size; i++) {
+				if (!isRemoved(a.items[i])) {
+					evs[size] = a.items[i];
+					sequence[size++] = a.sequence[i];
+				}
+			}
+		}
+
+		// Publish
+		FlattenedListeners flattened = new FlattenedListeners();
+		flattened.listeners = new ListenerArray(evs, sequence, size);
+		flattened.stamps = stamps;
+		slot.flattened = flattened;
+		return flattened.listeners;
+	}
+
+	private MergedListeners mergeListeners(EventListenerSlot slot, Class<?> eventType) {
+		synchronized (registryLock) {
+			MergedListeners current = slot.merged;
+			if (current != null && current.version == version)
+				return current;
+
+			// Collect the listeners of the event type and all its supertypes
+			ArrayList<ListenerArray> arrays = new ArrayList<ListenerArray>();
+			collectListeners(eventType, arrays, new HashSet<Class<?>>());
+			int count = 0;
+			for (ListenerArray a : arrays)
+				count += a.size;
+
+			// Merge in registration order
+			Consumer<?>[] evs = new Consumer<?>[count];
+			long[] sequence = new long[count];
+			int[] positions = new int[arrays.size()];
+			int merged = 0;
+			for (int i = 0; i < count; i++) {
+				int next = -1;
+				for (int i2 = 0; i2 < arrays.size(); i2++) {
+					ListenerArray a = arrays.get(i2);
+					if (positions[i2] < a.size && (next == -1
+							|| a.sequence[positions[i2]] < arrays.get(next).sequence[positions[next]]))
+						next = i2;
+				}
+				ListenerArray a = arrays.get(next);
+				Consumer<?> l = a.items[positions[next]];
+				if (!isRemoved(l)) {
+					evs[merged] = l;
+					sequence[merged++] = a.sequence[positions[next]];
+				}
+				positions[next]++;
+			}
+			MergedListeners result = new MergedListeners();
+			result.listeners = new ListenerArray(evs, sequence, merged);
+			result.version = version;
+			slot.merged = result;
+			return result;
+		}
+	}
+
+	private void collectListeners(Class<?> type, ArrayList<ListenerArray> arrays, HashSet<Class<?>> visited) {
+		if (type == null || !visited.add(type))
+			return;
+		ListenerArray a = getSlot(type).listeners;
+		if (a.size != 0)
+			arrays.add(a);
+		collectListeners(type.getSuperclass(), arrays, visited);
+		for (Class<?> inter : type.getInterfaces())
+			collectListeners(inter, arrays, visited);
+	}
+
+	private static boolean isRemoved(Consumer<?> listener) {
+		return listener instanceof EventContainerListener && ((EventContainerListener) listener).removed;
+	}
+
+	private void compileChain(EventListenerSlot slot, ListenerArray evs) {
+		CompiledChain compiled = new CompiledChain();
+		compiled.source = evs;
+
+		// Chains live in the shared binary class loader, keep them away from buses
+		// that want unloadable dispatchers
+		Consumer<?>[] live = new Consumer<?>[0];
+		if (evs.size <= CHAIN_MAX_LISTENERS && backend == DispatcherBackend.ASM) {
+			try {
+				// Removed listeners are left out, the chain is dropped when a listener is
+				// removed
+				ArrayList<Consumer<?>> liveList = new ArrayList<Consumer<?>>();
+				for (int i = 0; i < evs.size; i++) {
+					if (!isRemoved(evs.items[i]))
+						liveList.add(evs.items[i]);
+				}
+				live = liveList.toArray(t -> new Consumer<?>[t]);
+				compiled.chain = getDispatchChain(live);
+			} catch (Throwable e) {
+				eventLog.debug("Could not compile dispatch chain, falling back to listener iteration: " + e);
+			}
+		}
+
+		// Publish
+		// Inlined listeners are called directly, so the chain must not be published
+		// if one of them was removed while compiling
+		synchronized (registryLock) {
+			for (Consumer<?> l : live) {
+				if (isRemoved(l))
+					return;
 			}
+			slot.chain = compiled;
+		}
+	}
+
+	private void attachListener(EventListenerSlot slot, Consumer<?> listener) {
+		slot.add(listener, nextSequence++);
+		version++;
+	}
+
+	private boolean detachListener(EventListenerSlot slot, Consumer<?> listener) {
+		if (!slot.remove(listener))
+			return false;
+		version++;
+		return true;
+	}
+
+	private void loadEvent(Class<?> eventType) {
+		EventListenerSlot slot = getSlot(eventType);
+		synchronized (registryLock) {
+			if (slot.loaded)
+				return;
+			slot.loaded = true;
+		}
+
+		// Load event
+		EventObject ev = null;
+		try {
+			ev = (EventObject) eventType.getConstructor().newInstance();
+		} catch (Exception e) {
 		}
+		if (ev != null)
+			ev.onRegister(this);
 	}
 
 	@Override
 	public EventBus createBus() {
 		EventBusImpl ev = new EventBusImpl();
 		ev.parent = this;
+		ev.depth = depth + 1;
+		ev.backend = backend;
+		ev.hierarchyDispatch = hierarchyDispatch;
 		return ev;
 	}
 
+	@Override
+	public EventBus createShardedBus(int lanes, int laneCapacity) {
+		EventBusImpl ev = (EventBusImpl) createBus();
+		ev.createAffinityLanes(lanes, laneCapacity);
+		return ev;
+	}
+
+	@Override
+	public void setDispatcherBackend(DispatcherBackend backend) {
+		this.backend = backend;
+	}
+
+	@Override
+	public DispatcherBackend getDispatcherBackend() {
+		return backend;
+	}
+
+	@Override
+	public void setHierarchyDispatch(boolean hierarchyDispatch) {
+		synchronized (registryLock) {
+			this.hierarchyDispatch = hierarchyDispatch;
+			version++;
+		}
+	}
+
+	@Override
+	public boolean isHierarchyDispatch() {
+		return hierarchyDispatch;
+	}
+
+	@Override
+	public void setDispatcherCacheDirectory(File directory) {
+		binLoader.setCacheDirectory(directory);
+	}
+
+	@Override
+	public long getDispatcherCacheHits() {
+		return binLoader.getCacheHits();
+	}
+
+	@Override
+	public long getDispatcherCacheMisses() {
+		return binLoader.getCacheMisses();
+	}
+
+	private IEventDispatchChain getDispatchChain(Consumer<?>[] evs) throws ReflectiveOperationException {
+		// Build the chain shape, listeners with the same shape share one class
+		StringBuilder shape = new StringBuilder();
+		boolean[] inline = new boolean[evs.length];
+		for (int i = 0; i < evs.length; i++) {
+			if (evs[i] instanceof EventContainerListener && canInline((EventContainerListener) evs[i])) {
+				EventContainerListener l = (EventContainerListener) evs[i];
+				inline[i] = true;
+				shape.append(l.receiverType.getTypeName()).append(":").append(l.method.getName()).append("(")
+						.append(l.eventType.getTypeName()).append(")")
+						.append(Modifier.isStatic(l.method.getModifiers()) ? "S" : "I").append(";");
+			} else
+				shape.append("*;");
+		}
+
+		// Find or generate the chain class
+		Class<IEventDispatchChain> chainType;
+		synchronized (dispatchChains) {
+			chainType = dispatchChains.get(shape.toString());
+			if (chainType == null) {
+				chainType = generateDispatchChain(evs, inline);
+				dispatchChains.put(shape.toString(), chainType);
+			}
+		}
+
+		// Bind listener targets
+		Object[] targets = new Object[evs.length];
+		for (int i = 0; i < evs.length; i++) {
+			if (inline[i])
+				targets[i] = ((EventContainerListener) evs[i]).owner;
+			else
+				targets[i] = evs[i];
+		}
+		return chainType.getConstructor(Object[].class).newInstance(new Object[] { targets });
+	}
+
+	private boolean canInline(EventContainerListener l) {
+		// Weak listeners must not be kept reachable by the chain
+		if (!l.direct || (l.owner == null && !l.plan.isStatic))
+			return false;
+
+		// The synthetic class must be able to link against the receiver and event
+		// types
+		if (!Modifier.isPublic(l.receiverType.getModifiers()) || !Modifier.isPublic(l.eventType.getModifiers()))
+			return false;
+		try {
+			return Class.forName(l.receiverType.getName(), false, binLoader) == l.receiverType
+					&& Class.forName(l.eventType.getName(), false, binLoader) == l.eventType;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	private Class<IEventDispatchChain> generateDispatchChain(Consumer<?>[] evs, boolean[] inline) {
+		// Generate bytecode
+		ClassNode syn = new ClassNode(Opcodes.ASM9);
+		syn.superName = "java/lang/Object";
+		syn.version = Opcodes.V1_6;
+		syn.name = "usr/skyswimmer/quicktoolsutils/events/impl/asm/chains/DispatchChain$Synthetic_"
+				+ dispatchChains.size() + "_" + System.currentTimeMillis();
+		syn.interfaces.add("usr/skyswimmer/quicktoolsutils/events/impl/asm/IEventDispatchChain");
+		syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
+
+		// Generate fields and constructor
+		MethodNode init = new MethodNode();
+		init.access = Opcodes.ACC_PUBLIC;
+		init.name = "<init>";
+		init.desc = "([Ljava/lang/Object;)V";
+		init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+		init.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
+		String[] fieldTypes = new String[evs.length];
+		for (int i = 0; i < evs.length; i++) {
+			if (inline[i]) {
+				EventContainerListener l = (EventContainerListener) evs[i];
+				if (Modifier.isStatic(l.method.getModifiers()))
+					continue;
+				fieldTypes[i] = l.receiverType.getTypeName().replace(".", "/");
+			} else
+				fieldTypes[i] = "java/util/function/Consumer";
+			syn.fields.add(new FieldNode(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "l" + i, "L" + fieldTypes[i] + ";",
+					null, null));
+			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+			init.instructions.add(new LdcInsnNode(i));
+			init.instructions.add(new InsnNode(Opcodes.AALOAD));
+			init.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, fieldTypes[i]));
+			init.instructions.add(new FieldInsnNode(Opcodes.PUTFIELD, syn.name, "l" + i, "L" + fieldTypes[i] + ";"));
+		}
+		init.instructions.add(new InsnNode(Opcodes.RETURN));
+		syn.methods.add(init);
+
+		// Generate dispatcher
+		MethodNode setup = new MethodNode();
+		setup.name = "dispatch";
+		setup.desc = "(Lusr/skyswimmer/quicktoolsutils/events/EventObject;)V";
+		setup.access = Opcodes.ACC_PUBLIC;
+		for (int i = 0; i < evs.length; i++) {
+			if (inline[i]) {
+				// Call the listener method directly
+				EventContainerListener l = (EventContainerListener) evs[i];
+				boolean isStatic = Modifier.isStatic(l.method.getModifiers());
+				boolean supplier = SupplierEventObject.class.isAssignableFrom(l.eventType);
+				if (!isStatic) {
+					setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+					setup.instructions.add(new FieldInsnNode(Opcodes.GETFIELD, syn.name, "l" + i,
+							"L" + fieldTypes[i] + ";"));
+				}
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, l.eventType.getTypeName().replace(".", "/")));
+				setup.instructions.add(new MethodInsnNode(isStatic ? Opcodes.INVOKESTATIC : Opcodes.INVOKEVIRTUAL,
+						l.receiverType.getTypeName().replace(".", "/"), l.method.getName(),
+						"(" + getDescriptors(l.eventType) + ")"
+								+ getDescriptor(l.method.getReturnType().getTypeName()),
+						false));
+				if (supplier) {
+					// Assign the result if one was returned
+					LabelNode noResult = new LabelNode();
+					setup.instructions.add(new VarInsnNode(Opcodes.ASTORE, 2));
+					setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
+					setup.instructions.add(new JumpInsnNode(Opcodes.IFNULL, noResult));
+					setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+					setup.instructions.add(
+							new TypeInsnNode(Opcodes.CHECKCAST, "usr/skyswimmer/quicktoolsutils/events/SupplierEventObject"));
+					setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
+					setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL,
+							"usr/skyswimmer/quicktoolsutils/events/SupplierEventObject", "setResult",
+							"(Ljava/lang/Object;)V", false));
+					setup.instructions.add(noResult);
+				} else if (!l.method.getReturnType().getTypeName().equals("void")) {
+					if (l.method.getReturnType() == long.class || l.method.getReturnType() == double.class)
+						setup.instructions.add(new InsnNode(Opcodes.POP2));
+					else
+						setup.instructions.add(new InsnNode(Opcodes.POP));
+				}
+			} else {
+				// Call the listener object
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				setup.instructions.add(new FieldInsnNode(Opcodes.GETFIELD, syn.name, "l" + i,
+						"L" + fieldTypes[i] + ";"));
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEINTERFACE, "java/util/function/Consumer",
+						"accept", "(Ljava/lang/Object;)V", true));
+			}
+
+			// Stop once handled
+			if (i + 1 < evs.length) {
+				LabelNode next = new LabelNode();
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL,
+						"usr/skyswimmer/quicktoolsutils/events/EventObject", "isHandled", "()Z", false));
+				setup.instructions.add(new JumpInsnNode(Opcodes.IFEQ, next));
+				setup.instructions.add(new InsnNode(Opcodes.RETURN));
+				setup.instructions.add(next);
+			}
+		}
+		setup.instructions.add(new InsnNode(Opcodes.RETURN));
+		syn.methods.add(setup);
+
+		// Load
+		return binLoader.loadClassBinary(syn, IEventDispatchChain.class);
+	}
+
 	private IStaticEventDispatcher getStaticDispatcher(Class<?> type, Method method, Class<?> eventObject) {
+		if (backend == DispatcherBackend.HIDDEN_CLASS) {
+			try {
+				return LambdaDispatcherFactory.getStaticDispatcher(method);
+			} catch (RuntimeException e) {
+				eventLog.debug("Could not create hidden class dispatcher for " + type.getTypeName() + ":"
+						+ method.getName() + ", falling back to ASM: " + e);
+			}
+		}
+
 		String eventPth = type.getTypeName().replace(".", "/") + "/" + eventObject.getTypeName().replace(".", "/") + "_"
 				+ method.getName().replace(".", "/");
 		synchronized (staticDispatchers) {
 			if (staticDispatchers.containsKey(eventPth))
 				return staticDispatchers.get(eventPth);
 
-			// Generate bytecode
-			ClassNode syn = new ClassNode(Opcodes.ASM9);
-			syn.superName = "java/lang/Object";
-			syn.version = Opcodes.V1_6;
-			syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
-			syn.interfaces.add("org/asf/nexus/events/impl/asm/IStaticEventDispatcher");
-			syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
-
-			// Generate constructor
-			MethodNode init = new MethodNode();
-			init.access = Opcodes.ACC_PUBLIC;
-			init.name = "<init>";
-			init.desc = "()V";
-			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
-			init.instructions
-					.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
-			init.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(init);
-
-			// Generate dispatcher
-			MethodNode setup = new MethodNode();
-			setup.name = "dispatch";
-			setup.desc = "(Lorg/asf/nexus/events/EventObject;)V";
-			setup.access = Opcodes.ACC_PUBLIC;
-
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventObject.getTypeName().replace(".", "/")));
-			setup.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, type.getTypeName().replace(".", "/"),
-					method.getName(),
-					"(" + getDescriptors(eventObject) + ")" + getDescriptor(method.getReturnType().getTypeName())));
-			if (!method.getReturnType().getTypeName().equals("void"))
-				setup.instructions.add(new InsnNode(Opcodes.POP));
-			setup.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(setup);
+			// Check the bytecode cache
+			String cacheKey = getCacheKey(type, method, eventObject, "IStaticEventDispatcher");
+			Class<IStaticEventDispatcher> dp = binLoader.loadCachedClass(cacheKey, IStaticEventDispatcher.class);
+			if (dp == null) {
+				// Generate bytecode
+				ClassNode syn = new ClassNode(Opcodes.ASM9);
+				syn.superName = "java/lang/Object";
+				syn.version = Opcodes.V1_6;
+				syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
+				syn.interfaces.add("usr/skyswimmer/quicktoolsutils/events/impl/asm/IStaticEventDispatcher");
+				syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
+
+				// Generate constructor
+				MethodNode init = new MethodNode();
+				init.access = Opcodes.ACC_PUBLIC;
+				init.name = "<init>";
+				init.desc = "()V";
+				init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				init.instructions
+						.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
+				init.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(init);
+
+				// Generate dispatcher
+				MethodNode setup = new MethodNode();
+				setup.name = "dispatch";
+				setup.desc = "(Lusr/skyswimmer/quicktoolsutils/events/EventObject;)V";
+				setup.access = Opcodes.ACC_PUBLIC;
+
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventObject.getTypeName().replace(".", "/")));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, type.getTypeName().replace(".", "/"),
+						method.getName(),
+						"(" + getDescriptors(eventObject) + ")" + getDescriptor(method.getReturnType().getTypeName())));
+				if (!method.getReturnType().getTypeName().equals("void"))
+					setup.instructions.add(new InsnNode(Opcodes.POP));
+				setup.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(setup);
+
+				// Define class
+				dp = binLoader.loadClassBinary(syn, IStaticEventDispatcher.class, cacheKey);
+			}
 
 			// Create instance
-			Class<IStaticEventDispatcher> dp = binLoader.loadClassBinary(syn, IStaticEventDispatcher.class);
 			try {
 				IStaticEventDispatcher inst = dp.getConstructor().newInstance();
 				staticDispatchers.put(eventPth, inst);
@@ -511,52 +1915,93 @@ public class EventBusImpl extends EventBus {
 		}
 	}
 
+	private static String getCacheKey(Class<?> type, Method method, Class<?> eventType, String kind) {
+		if (binLoader.getCacheDirectory() == null)
+			return null;
+		String classHash = classHashes.get(type);
+		if (classHash == null)
+			return null;
+
+		// Key on the receiver bytecode and the listener signature
+		return HashUtils.sha256Hash((DISPATCHER_CACHE_FORMAT + ";" + classHash + ";" + kind + ";" + method.getName()
+				+ "(" + eventType.getName() + ")" + method.getReturnType().getName()).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String hashClass(Class<?> type) {
+		if (type.getClassLoader() == null)
+			return null;
+		try (InputStream strm = type.getClassLoader()
+				.getResourceAsStream(type.getName().replace(".", "/") + ".class")) {
+			if (strm == null)
+				return null;
+			return HashUtils.sha256Hash(strm.readAllBytes());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	private IEventDispatcher getDispatcher(Class<?> type, Method method, Class<?> eventType) {
+		if (backend == DispatcherBackend.HIDDEN_CLASS) {
+			try {
+				return LambdaDispatcherFactory.getDispatcher(method);
+			} catch (RuntimeException e) {
+				eventLog.debug("Could not create hidden class dispatcher for " + type.getTypeName() + ":"
+						+ method.getName() + ", falling back to ASM: " + e);
+			}
+		}
+
 		String eventPth = type.getTypeName().replace(".", "/") + "/" + eventType.getTypeName().replace(".", "/") + "_"
 				+ method.getName().replace(".", "/");
 		synchronized (objDispatchers) {
 			if (objDispatchers.containsKey(eventPth))
 				return objDispatchers.get(eventPth);
 
-			// Generate bytecode
-			ClassNode syn = new ClassNode(Opcodes.ASM9);
-			syn.superName = "java/lang/Object";
-			syn.version = Opcodes.V1_6;
-			syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
-			syn.interfaces.add("org/asf/nexus/events/impl/asm/IEventDispatcher");
-			syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
-
-			// Generate constructor
-			MethodNode init = new MethodNode();
-			init.access = Opcodes.ACC_PUBLIC;
-			init.name = "<init>";
-			init.desc = "()V";
-			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
-			init.instructions
-					.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
-			init.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(init);
-
-			// Generate dispatcher
-			MethodNode setup = new MethodNode();
-			setup.name = "dispatch";
-			setup.desc = "(Lorg/asf/nexus/events/IEventReceiver;Lorg/asf/nexus/events/EventObject;)V";
-			setup.access = Opcodes.ACC_PUBLIC;
-
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, type.getTypeName().replace(".", "/")));
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventType.getTypeName().replace(".", "/")));
-			setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, type.getTypeName().replace(".", "/"),
-					method.getName(),
-					"(" + getDescriptors(eventType) + ")" + getDescriptor(method.getReturnType().getTypeName())));
-			if (!method.getReturnType().getTypeName().equals("void"))
-				setup.instructions.add(new InsnNode(Opcodes.POP));
-			setup.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(setup);
+			// Check the bytecode cache
+			String cacheKey = getCacheKey(type, method, eventType, "IEventDispatcher");
+			Class<IEventDispatcher> dp = binLoader.loadCachedClass(cacheKey, IEventDispatcher.class);
+			if (dp == null) {
+				// Generate bytecode
+				ClassNode syn = new ClassNode(Opcodes.ASM9);
+				syn.superName = "java/lang/Object";
+				syn.version = Opcodes.V1_6;
+				syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
+				syn.interfaces.add("usr/skyswimmer/quicktoolsutils/events/impl/asm/IEventDispatcher");
+				syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
+
+				// Generate constructor
+				MethodNode init = new MethodNode();
+				init.access = Opcodes.ACC_PUBLIC;
+				init.name = "<init>";
+				init.desc = "()V";
+				init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				init.instructions
+						.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
+				init.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(init);
+
+				// Generate dispatcher
+				MethodNode setup = new MethodNode();
+				setup.name = "dispatch";
+				setup.desc = "(Lusr/skyswimmer/quicktoolsutils/events/IEventReceiver;Lusr/skyswimmer/quicktoolsutils/events/EventObject;)V";
+				setup.access = Opcodes.ACC_PUBLIC;
+
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, type.getTypeName().replace(".", "/")));
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventType.getTypeName().replace(".", "/")));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, type.getTypeName().replace(".", "/"),
+						method.getName(),
+						"(" + getDescriptors(eventType) + ")" + getDescriptor(method.getReturnType().getTypeName())));
+				if (!method.getReturnType().getTypeName().equals("void"))
+					setup.instructions.add(new InsnNode(Opcodes.POP));
+				setup.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(setup);
+
+				// Define class
+				dp = binLoader.loadClassBinary(syn, IEventDispatcher.class, cacheKey);
+			}
 
 			// Create instance
-			Class<IEventDispatcher> dp = binLoader.loadClassBinary(syn, IEventDispatcher.class);
 			try {
 				IEventDispatcher inst = dp.getConstructor().newInstance();
 				objDispatchers.put(eventPth, inst);
@@ -570,48 +2015,63 @@ public class EventBusImpl extends EventBus {
 
 	private IStaticSupplierEventDispatcher getStaticSupplierDispatcher(Class<?> type, Method method,
 			Class<?> eventObject) {
+		if (backend == DispatcherBackend.HIDDEN_CLASS) {
+			try {
+				return LambdaDispatcherFactory.getStaticSupplierDispatcher(method);
+			} catch (RuntimeException e) {
+				eventLog.debug("Could not create hidden class dispatcher for " + type.getTypeName() + ":"
+						+ method.getName() + ", falling back to ASM: " + e);
+			}
+		}
+
 		String eventPth = type.getTypeName().replace(".", "/") + "/" + eventObject.getTypeName().replace(".", "/") + "_"
 				+ method.getName().replace(".", "/");
 		synchronized (staticSupDispatchers) {
 			if (staticSupDispatchers.containsKey(eventPth))
 				return staticSupDispatchers.get(eventPth);
 
-			// Generate bytecode
-			ClassNode syn = new ClassNode(Opcodes.ASM9);
-			syn.superName = "java/lang/Object";
-			syn.version = Opcodes.V1_6;
-			syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
-			syn.interfaces.add("org/asf/nexus/events/impl/asm/IStaticSupplierEventDispatcher");
-			syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
-
-			// Generate constructor
-			MethodNode init = new MethodNode();
-			init.access = Opcodes.ACC_PUBLIC;
-			init.name = "<init>";
-			init.desc = "()V";
-			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
-			init.instructions
-					.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
-			init.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(init);
-
-			// Generate dispatcher
-			MethodNode setup = new MethodNode();
-			setup.name = "dispatch";
-			setup.desc = "(Lorg/asf/nexus/events/SupplierEventObject;)Ljava/lang/Object;";
-			setup.access = Opcodes.ACC_PUBLIC;
-
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventObject.getTypeName().replace(".", "/")));
-			setup.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, type.getTypeName().replace(".", "/"),
-					method.getName(),
-					"(" + getDescriptors(eventObject) + ")" + getDescriptor(method.getReturnType().getTypeName())));
-			setup.instructions.add(new InsnNode(Opcodes.ARETURN));
-			syn.methods.add(setup);
+			// Check the bytecode cache
+			String cacheKey = getCacheKey(type, method, eventObject, "IStaticSupplierEventDispatcher");
+			Class<IStaticSupplierEventDispatcher> dp = binLoader.loadCachedClass(cacheKey, IStaticSupplierEventDispatcher.class);
+			if (dp == null) {
+				// Generate bytecode
+				ClassNode syn = new ClassNode(Opcodes.ASM9);
+				syn.superName = "java/lang/Object";
+				syn.version = Opcodes.V1_6;
+				syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
+				syn.interfaces.add("usr/skyswimmer/quicktoolsutils/events/impl/asm/IStaticSupplierEventDispatcher");
+				syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
+
+				// Generate constructor
+				MethodNode init = new MethodNode();
+				init.access = Opcodes.ACC_PUBLIC;
+				init.name = "<init>";
+				init.desc = "()V";
+				init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				init.instructions
+						.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
+				init.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(init);
+
+				// Generate dispatcher
+				MethodNode setup = new MethodNode();
+				setup.name = "dispatch";
+				setup.desc = "(Lusr/skyswimmer/quicktoolsutils/events/SupplierEventObject;)Ljava/lang/Object;";
+				setup.access = Opcodes.ACC_PUBLIC;
+
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventObject.getTypeName().replace(".", "/")));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, type.getTypeName().replace(".", "/"),
+						method.getName(),
+						"(" + getDescriptors(eventObject) + ")" + getDescriptor(method.getReturnType().getTypeName())));
+				setup.instructions.add(new InsnNode(Opcodes.ARETURN));
+				syn.methods.add(setup);
+
+				// Define class
+				dp = binLoader.loadClassBinary(syn, IStaticSupplierEventDispatcher.class, cacheKey);
+			}
 
 			// Create instance
-			Class<IStaticSupplierEventDispatcher> dp = binLoader.loadClassBinary(syn,
-					IStaticSupplierEventDispatcher.class);
 			try {
 				IStaticSupplierEventDispatcher inst = dp.getConstructor().newInstance();
 				staticSupDispatchers.put(eventPth, inst);
@@ -624,49 +2084,65 @@ public class EventBusImpl extends EventBus {
 	}
 
 	private ISupplierEventDispatcher getSupplierDispatcher(Class<?> type, Method method, Class<?> eventType) {
+		if (backend == DispatcherBackend.HIDDEN_CLASS) {
+			try {
+				return LambdaDispatcherFactory.getSupplierDispatcher(method);
+			} catch (RuntimeException e) {
+				eventLog.debug("Could not create hidden class dispatcher for " + type.getTypeName() + ":"
+						+ method.getName() + ", falling back to ASM: " + e);
+			}
+		}
+
 		String eventPth = type.getTypeName().replace(".", "/") + "/" + eventType.getTypeName().replace(".", "/") + "_"
 				+ method.getName().replace(".", "/");
 		synchronized (objSupDispatchers) {
 			if (objSupDispatchers.containsKey(eventPth))
 				return objSupDispatchers.get(eventPth);
 
-			// Generate bytecode
-			ClassNode syn = new ClassNode(Opcodes.ASM9);
-			syn.superName = "java/lang/Object";
-			syn.version = Opcodes.V1_6;
-			syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
-			syn.interfaces.add("org/asf/nexus/events/impl/asm/ISupplierEventDispatcher");
-			syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
-
-			// Generate constructor
-			MethodNode init = new MethodNode();
-			init.access = Opcodes.ACC_PUBLIC;
-			init.name = "<init>";
-			init.desc = "()V";
-			init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
-			init.instructions
-					.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
-			init.instructions.add(new InsnNode(Opcodes.RETURN));
-			syn.methods.add(init);
-
-			// Generate dispatcher
-			MethodNode setup = new MethodNode();
-			setup.name = "dispatch";
-			setup.desc = "(Lorg/asf/nexus/events/IEventReceiver;Lorg/asf/nexus/events/SupplierEventObject;)Ljava/lang/Object;";
-			setup.access = Opcodes.ACC_PUBLIC;
-
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, type.getTypeName().replace(".", "/")));
-			setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
-			setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventType.getTypeName().replace(".", "/")));
-			setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, type.getTypeName().replace(".", "/"),
-					method.getName(),
-					"(" + getDescriptors(eventType) + ")" + getDescriptor(method.getReturnType().getTypeName())));
-			setup.instructions.add(new InsnNode(Opcodes.ARETURN));
-			syn.methods.add(setup);
+			// Check the bytecode cache
+			String cacheKey = getCacheKey(type, method, eventType, "ISupplierEventDispatcher");
+			Class<ISupplierEventDispatcher> dp = binLoader.loadCachedClass(cacheKey, ISupplierEventDispatcher.class);
+			if (dp == null) {
+				// Generate bytecode
+				ClassNode syn = new ClassNode(Opcodes.ASM9);
+				syn.superName = "java/lang/Object";
+				syn.version = Opcodes.V1_6;
+				syn.name = eventPth + "$Synthetic_" + System.currentTimeMillis();
+				syn.interfaces.add("usr/skyswimmer/quicktoolsutils/events/impl/asm/ISupplierEventDispatcher");
+				syn.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC;
+
+				// Generate constructor
+				MethodNode init = new MethodNode();
+				init.access = Opcodes.ACC_PUBLIC;
+				init.name = "<init>";
+				init.desc = "()V";
+				init.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				init.instructions
+						.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false));
+				init.instructions.add(new InsnNode(Opcodes.RETURN));
+				syn.methods.add(init);
+
+				// Generate dispatcher
+				MethodNode setup = new MethodNode();
+				setup.name = "dispatch";
+				setup.desc = "(Lusr/skyswimmer/quicktoolsutils/events/IEventReceiver;Lusr/skyswimmer/quicktoolsutils/events/SupplierEventObject;)Ljava/lang/Object;";
+				setup.access = Opcodes.ACC_PUBLIC;
+
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, type.getTypeName().replace(".", "/")));
+				setup.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
+				setup.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, eventType.getTypeName().replace(".", "/")));
+				setup.instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, type.getTypeName().replace(".", "/"),
+						method.getName(),
+						"(" + getDescriptors(eventType) + ")" + getDescriptor(method.getReturnType().getTypeName())));
+				setup.instructions.add(new InsnNode(Opcodes.ARETURN));
+				syn.methods.add(setup);
+
+				// Define class
+				dp = binLoader.loadClassBinary(syn, ISupplierEventDispatcher.class, cacheKey);
+			}
 
 			// Create instance
-			Class<ISupplierEventDispatcher> dp = binLoader.loadClassBinary(syn, ISupplierEventDispatcher.class);
 			try {
 				ISupplierEventDispatcher inst = dp.getConstructor().newInstance();
 				objSupDispatchers.put(eventPth, inst);
@@ -709,16 +2185,202 @@ public class EventBusImpl extends EventBus {
 		return prefix + "L" + type.replaceAll("\\.", "/") + ";";
 	}
 
+	private static class ListenerArray {
+
+		public static final ListenerArray EMPTY = new ListenerArray(new Consumer<?>[0], new long[0], 0);
+
+		public final Consumer<?>[] items;
+		public final long[] sequence;
+		public final int size;
+
+		public ListenerArray(Consumer<?>[] items, long[] sequence, int size) {
+			this.items = items;
+			this.sequence = sequence;
+			this.size = size;
+		}
+
+	}
+
+	private static class EventListenerSlot {
+
+		public volatile ListenerArray listeners = ListenerArray.EMPTY;
+		public volatile MergedListeners merged;
+		public volatile FlattenedListeners flattened;
+		public volatile CompiledChain chain;
+		public volatile BlockingListeners blocking;
+		public volatile ConcurrentHashMap<Object, Consumer<?>[]> keyed;
+		public volatile boolean parallel;
+		public AtomicInteger dispatches = new AtomicInteger();
+		public int dead;
+		public boolean loaded;
+
+		public void add(Consumer<?> listener, long seq) {
+			// Append past the end of the current array, published arrays never read
+			// beyond their own size so the backing arrays can be shared
+			ListenerArray current = listeners;
+			Consumer<?>[] items = current.items;
+			long[] sequence = current.sequence;
+			if (current.size == items.length) {
+				int capacity = Math.max(4, current.size * 2);
+				items = Arrays.copyOf(items, capacity);
+				sequence = Arrays.copyOf(sequence, capacity);
+			}
+			items[current.size] = listener;
+			sequence[current.size] = seq;
+			listeners = new ListenerArray(items, sequence, current.size + 1);
+		}
+
+		public boolean remove(Consumer<?> listener) {
+			ListenerArray current = listeners;
+			for (int i = 0; i < current.size; i++) {
+				if (current.items[i].equals(listener)) {
+					Consumer<?>[] items = new Consumer<?>[current.size - 1];
+					long[] sequence = new long[current.size - 1];
+					System.arraycopy(current.items, 0, items, 0, i);
+					System.arraycopy(current.items, i + 1, items, i, current.size - i - 1);
+					System.arraycopy(current.sequence, 0, sequence, 0, i);
+					System.arraycopy(current.sequence, i + 1, sequence, i, current.size - i - 1);
+					listeners = new ListenerArray(items, sequence, items.length);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public void compact() {
+			if (dead == 0)
+				return;
+
+			// Copy the remaining listeners into new arrays
+			ListenerArray current = listeners;
+			Consumer<?>[] items = new Consumer<?>[current.size - dead];
+			long[] sequence = new long[items.length];
+			int size = 0;
+			for (int i = 0; i < current.size; i++) {
+				if (!isRemoved(current.items[i])) {
+					items[size] = current.items[i];
+					sequence[size++] = current.sequence[i];
+				}
+			}
+			dead = 0;
+			listeners = new ListenerArray(items, sequence, size);
+		}
+
+	}
+
+	private static class ReceiverReference extends WeakReference<IEventReceiver> {
+
+		public final EventBusImpl bus;
+		private final int hash;
+
+		public ReceiverReference(IEventReceiver receiver) {
+			super(receiver);
+			bus = null;
+			hash = System.identityHashCode(receiver);
+		}
+
+		public ReceiverReference(EventBusImpl bus, IEventReceiver receiver,
+				ReferenceQueue<IEventReceiver> queue) {
+			super(receiver, queue);
+			this.bus = bus;
+			hash = System.identityHashCode(receiver);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			// Cleared references are only equal to themselves
+			if (obj == this)
+				return true;
+			if (!(obj instanceof ReceiverReference))
+				return false;
+			Object receiver = get();
+			return receiver != null && receiver == ((ReceiverReference) obj).get();
+		}
+
+	}
+
+	private static class StaticListenerRef {
+		public EventContainerListener listener;
+		public int refs;
+	}
+
+	private static class ReceiverSubscription {
+		public EventContainerListener[] listeners;
+		public String[] staticPaths;
+		public boolean removed;
+	}
+
+	private static class MergedListeners {
+		public ListenerArray listeners;
+		public long version;
+	}
+
+	private static class TopicSubscription {
+		public Class<?> eventType;
+		public BiConsumer<?, String[]> handler;
+
+		@Override
+		public int hashCode() {
+			return eventType.hashCode() * 31 + handler.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TopicSubscription))
+				return false;
+			TopicSubscription other = (TopicSubscription) obj;
+			return other.eventType == eventType && other.handler.equals(handler);
+		}
+	}
+
+	private static class FlattenedListeners {
+		public ListenerArray listeners;
+		public long[] stamps;
+	}
+
+	private static class BlockingListeners {
+		public ListenerArray source;
+		public boolean present;
+	}
+
+	private static class CompiledChain {
+		public ListenerArray source;
+		public IEventDispatchChain chain;
+	}
+
 	@SuppressWarnings("rawtypes")
 	private static class EventContainerListener implements Consumer {
 
 		public IEventReceiver owner;
 		public Consumer delegate;
+		public Consumer<List<EventObject>> batchDelegate;
+		public boolean batch;
+		public volatile boolean removed;
+
+		public ListenerPlan plan;
+		public EventListenerSlot slot;
+
+		public Class<?> receiverType;
+		public Method method;
+		public Class<?> eventType;
+		public boolean direct;
+
+		public EventListenerMetrics metricsSource;
+		public ListenerMetrics metrics;
+
+		public volatile boolean demoted;
+		public int overruns;
 
 		@Override
 		@SuppressWarnings("unchecked")
 		public void accept(Object t) {
-			delegate.accept(t);
+			if (!removed)
+				delegate.accept(t);
 		}
 
 	}
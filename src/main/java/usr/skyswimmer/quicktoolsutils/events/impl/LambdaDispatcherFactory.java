@@ -0,0 +1,132 @@
+package usr.skyswimmer.quicktoolsutils.events.impl;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+import usr.skyswimmer.quicktoolsutils.events.IEventReceiver;
+import usr.skyswimmer.quicktoolsutils.events.SupplierEventObject;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.IEventDispatcher;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.IStaticEventDispatcher;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.IStaticSupplierEventDispatcher;
+import usr.skyswimmer.quicktoolsutils.events.impl.asm.ISupplierEventDispatcher;
+
+/**
+ * 
+ * Dispatcher factory for the hidden class backend, dispatchers are spun by
+ * LambdaMetafactory as hidden nestmates of the class declaring the listener
+ * method and are cached on that class, so they are unloaded together with it.
+ * Classes of other class loaders cannot host lambda dispatchers as their
+ * unnamed module differs from ours, those use method handle dispatchers
+ * instead.
+ * 
+ * @author Sky Swimmer
+ *
+ */
+class LambdaDispatcherFactory {
+
+	private static ClassValue<ConcurrentHashMap<Method, Object>> dispatchers = new ClassValue<ConcurrentHashMap<Method, Object>>() {
+
+		@Override
+		protected ConcurrentHashMap<Method, Object> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<Method, Object>();
+		}
+
+	};
+
+	public static IEventDispatcher getDispatcher(Method method) {
+		return (IEventDispatcher) getDispatcher(method, IEventDispatcher.class,
+				MethodType.methodType(void.class, IEventReceiver.class, EventObject.class));
+	}
+
+	public static IStaticEventDispatcher getStaticDispatcher(Method method) {
+		return (IStaticEventDispatcher) getDispatcher(method, IStaticEventDispatcher.class,
+				MethodType.methodType(void.class, EventObject.class));
+	}
+
+	public static ISupplierEventDispatcher getSupplierDispatcher(Method method) {
+		return (ISupplierEventDispatcher) getDispatcher(method, ISupplierEventDispatcher.class,
+				MethodType.methodType(Object.class, IEventReceiver.class, SupplierEventObject.class));
+	}
+
+	public static IStaticSupplierEventDispatcher getStaticSupplierDispatcher(Method method) {
+		return (IStaticSupplierEventDispatcher) getDispatcher(method, IStaticSupplierEventDispatcher.class,
+				MethodType.methodType(Object.class, SupplierEventObject.class));
+	}
+
+	private static Object getDispatcher(Method method, Class<?> dispatcherType, MethodType dispatchType) {
+		return dispatchers.get(method.getDeclaringClass()).computeIfAbsent(method, t -> {
+			try {
+				// Find the listener method from the declaring class so the dispatcher becomes
+				// its nestmate
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(),
+						MethodHandles.lookup());
+				MethodHandle target = lookup.unreflect(method);
+				if ((lookup.lookupModes() & MethodHandles.Lookup.MODULE) == 0)
+					return createHandleDispatcher(dispatcherType, target.asType(dispatchType));
+
+				// The instantiated type casts the receiver and event to the types expected
+				// by the listener method
+				MethodType instantiated = target.type().changeReturnType(dispatchType.returnType());
+
+				// Spin the dispatcher
+				CallSite site = LambdaMetafactory.metafactory(lookup, "dispatch",
+						MethodType.methodType(dispatcherType), dispatchType, target, instantiated);
+				return site.getTarget().invoke();
+			} catch (Throwable e) {
+				throw new RuntimeException("Failed to create dispatcher for " + method.getDeclaringClass().getTypeName()
+						+ ":" + method.getName(), e);
+			}
+		});
+	}
+
+	private static Object createHandleDispatcher(Class<?> dispatcherType, MethodHandle target) {
+		if (dispatcherType == IEventDispatcher.class)
+			return (IEventDispatcher) (receiver, event) -> {
+				try {
+					target.invokeExact(receiver, event);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			};
+		else if (dispatcherType == IStaticEventDispatcher.class)
+			return (IStaticEventDispatcher) (event) -> {
+				try {
+					target.invokeExact(event);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			};
+		else if (dispatcherType == ISupplierEventDispatcher.class)
+			return (ISupplierEventDispatcher) (receiver, event) -> {
+				try {
+					return (Object) target.invokeExact(receiver, event);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			};
+		else
+			return (IStaticSupplierEventDispatcher) (event) -> {
+				try {
+					return (Object) target.invokeExact(event);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			};
+	}
+
+}
@@ -1,11 +1,16 @@
 package usr.skyswimmer.quicktoolsutils.events.impl.asm;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.ByteBuffer;
 import java.security.cert.Certificate;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
@@ -15,7 +20,11 @@ import java.security.CodeSource;
 public class BinaryClassLoader extends URLClassLoader {
 
 	private ClassLoader parent;
-	private HashMap<String, Class<?>> loaded = new HashMap<String, Class<?>>();
+	private ConcurrentHashMap<String, Class<?>> loaded = new ConcurrentHashMap<String, Class<?>>();
+
+	private volatile File cacheDir;
+	private AtomicLong cacheHits = new AtomicLong();
+	private AtomicLong cacheMisses = new AtomicLong();
 
 	public BinaryClassLoader(ClassLoader parent) {
 		super(new URL[0], parent);
@@ -31,21 +40,132 @@ public class BinaryClassLoader extends URLClassLoader {
 
 	@Override
 	public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-		if (loaded.containsKey(name))
-			return loaded.get(name);
-		Class<?> cls = parent.loadClass(name);
+		Class<?> cls = loaded.get(name);
+		if (cls != null)
+			return cls;
+		cls = parent.loadClass(name);
 		loaded.put(cls.getTypeName(), cls);
 		return cls;
 	}
 
 	public <T> Class<T> loadClassBinary(ClassNode node, Class<T> castType) {
+		return loadClassBinary(node, castType, null);
+	}
+
+	/**
+	 * Defines a class from a ClassNode and stores its bytecode in the cache
+	 * directory
+	 * 
+	 * @param <T>      Class type
+	 * @param node     Class node to define
+	 * @param castType Class type used to find the code source
+	 * @param cacheKey Cache key to store the bytecode under, null to skip the
+	 *                 cache
+	 * @return Class instance
+	 */
+	public <T> Class<T> loadClassBinary(ClassNode node, Class<T> castType, String cacheKey) {
 		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
 		node.accept(writer);
 		byte[] bytecode = writer.toByteArray();
+		Class<T> type = loadClassBinary(node.name.replace("/", "."), bytecode, castType, getSynthSource(castType));
+
+		// Write to cache
+		File dir = cacheDir;
+		if (dir != null && cacheKey != null) {
+			try {
+				// Write to a temporary file first so that readers never see partial
+				// bytecode
+				dir.mkdirs();
+				File tmp = File.createTempFile(cacheKey, ".tmp", dir);
+				Files.write(tmp.toPath(), bytecode);
+				Files.move(tmp.toPath(), new File(dir, cacheKey + ".class").toPath(),
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// The cache is best-effort
+			}
+		}
+		return type;
+	}
+
+	/**
+	 * Defines a class from bytecode stored in the cache directory
+	 * 
+	 * @param <T>      Class type
+	 * @param cacheKey Cache key the bytecode was stored under
+	 * @param castType Class type used to find the code source
+	 * @return Class instance or null if not cached
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Class<T> loadCachedClass(String cacheKey, Class<T> castType) {
+		File dir = cacheDir;
+		if (dir == null || cacheKey == null)
+			return null;
+
+		// Read bytecode
+		File file = new File(dir, cacheKey + ".class");
+		byte[] bytecode;
+		try {
+			bytecode = Files.readAllBytes(file.toPath());
+		} catch (IOException e) {
+			cacheMisses.incrementAndGet();
+			return null;
+		}
+
+		// Define class, the name is read from the bytecode itself
+		try {
+			Class<?> type = defineClass(null, ByteBuffer.wrap(bytecode),
+					new CodeSource(getSynthSource(castType), (Certificate[]) null));
+			loaded.put(type.getTypeName(), type);
+			cacheHits.incrementAndGet();
+			return (Class<T>) type;
+		} catch (LinkageError e) {
+			// Corrupt or incompatible entry
+			file.delete();
+			cacheMisses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Assigns the directory used to persist generated bytecode across restarts
+	 * 
+	 * @param cacheDir Cache directory, null to disable the cache
+	 */
+	public void setCacheDirectory(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Retrieves the directory used to persist generated bytecode
+	 * 
+	 * @return Cache directory or null if disabled
+	 */
+	public File getCacheDirectory() {
+		return cacheDir;
+	}
+
+	/**
+	 * Retrieves the amount of classes loaded from the cache directory
+	 * 
+	 * @return Cache hit count
+	 */
+	public long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	/**
+	 * Retrieves the amount of cache lookups that had to generate the class
+	 * 
+	 * @return Cache miss count
+	 */
+	public long getCacheMisses() {
+		return cacheMisses.get();
+	}
+
+	private URL getSynthSource(Class<?> castType) {
 		try {
-			return loadClassBinary(node.name.replace("/", "."), bytecode, castType,
-					new URL(castType.getProtectionDomain().getCodeSource().getLocation() + "/synth/"
-							+ System.currentTimeMillis()));
+			return new URL(castType.getProtectionDomain().getCodeSource().getLocation() + "/synth/"
+					+ System.currentTimeMillis());
 		} catch (MalformedURLException e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,9 @@
+package usr.skyswimmer.quicktoolsutils.events.impl.asm;
+
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+
+public interface IEventDispatchChain {
+
+	public void dispatch(EventObject event);
+
+}
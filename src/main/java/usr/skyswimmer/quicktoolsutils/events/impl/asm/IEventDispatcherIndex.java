@@ -0,0 +1,31 @@
+package usr.skyswimmer.quicktoolsutils.events.impl.asm;
+
+/**
+ *
+ * Index of dispatchers generated at compile time by the event listener
+ * annotation processor, one index is generated for each class declaring
+ * {@link usr.skyswimmer.quicktoolsutils.events.EventListener EventListener}
+ * methods
+ *
+ * @author Sky Swimmer
+ *
+ */
+public interface IEventDispatcherIndex {
+
+	/**
+	 * Suffix appended to the class name of generated dispatcher indexes
+	 */
+	public static final String INDEX_SUFFIX = "_EventDispatchers";
+
+	/**
+	 * Retrieves the generated dispatcher of a event listener method
+	 *
+	 * @param method    Listener method name
+	 * @param eventType Binary name of the event type the listener accepts
+	 * @return Dispatcher instance ({@link IEventDispatcher},
+	 *         {@link IStaticEventDispatcher}, {@link ISupplierEventDispatcher} or
+	 *         {@link IStaticSupplierEventDispatcher}) or null if not generated
+	 */
+	public Object getDispatcher(String method, String eventType);
+
+}
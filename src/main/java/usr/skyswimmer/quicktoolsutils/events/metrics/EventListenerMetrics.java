@@ -0,0 +1,178 @@
+package usr.skyswimmer.quicktoolsutils.events.metrics;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import usr.skyswimmer.quicktoolsutils.events.EventBus;
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+
+/**
+ *
+ * Per-listener metrics collector for event buses, records invocation counts,
+ * latency and exceptions keyed by listener and event type.<br/>
+ * <br/>
+ * Only one in every {@code sampleRate} dispatches is measured, so that the
+ * cost of timing stays small on hot event types, unsampled dispatches run
+ * through the regular dispatch path. Use a sample rate of 1 to measure every
+ * dispatch.<br/>
+ * <br/>
+ * Only the regular listeners of {@link EventBus#dispatchEvent(EventObject)}
+ * are measured, including async and pipeline dispatches which end up there.
+ * Keyed and topic listeners, parallel, deadline-bound and first-result
+ * dispatches, and grouped batches of {@link EventBus#dispatchAll} are not
+ * recorded.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class EventListenerMetrics {
+
+	private int sampleRate;
+	private volatile long slowThreshold = -1;
+	private volatile ISlowListenerHandler slowHandler;
+
+	private ConcurrentHashMap<MetricsKey, ListenerMetrics> metrics = new ConcurrentHashMap<MetricsKey, ListenerMetrics>();
+
+	private static class MetricsKey {
+		public String listener;
+		public Class<?> eventType;
+
+		@Override
+		public int hashCode() {
+			return listener.hashCode() * 31 + eventType.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MetricsKey))
+				return false;
+			MetricsKey other = (MetricsKey) obj;
+			return other.eventType == eventType && other.listener.equals(listener);
+		}
+	}
+
+	/**
+	 * Creates a metrics collector that measures every dispatch
+	 */
+	public EventListenerMetrics() {
+		this(1);
+	}
+
+	/**
+	 * Creates a metrics collector
+	 *
+	 * @param sampleRate Sample rate, one in every {@code sampleRate} dispatches is
+	 *                   measured
+	 */
+	public EventListenerMetrics(int sampleRate) {
+		if (sampleRate < 1)
+			throw new IllegalArgumentException("Sample rate must be at least 1");
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Retrieves the sample rate
+	 *
+	 * @return Sample rate
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Decides if the current dispatch should be measured
+	 *
+	 * @return True if the dispatch should be measured, false otherwise
+	 */
+	public boolean shouldSample() {
+		return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+	}
+
+	/**
+	 * Assigns the slow listener threshold, measured invocations taking longer
+	 * call the given handler
+	 *
+	 * @param thresholdNanos Threshold in nanoseconds
+	 * @param handler        Handler to call for slow invocations, null to disable
+	 */
+	public void setSlowListenerThreshold(long thresholdNanos, ISlowListenerHandler handler) {
+		slowHandler = handler;
+		slowThreshold = handler == null ? -1 : thresholdNanos;
+	}
+
+	/**
+	 * Retrieves the slow listener threshold
+	 *
+	 * @return Threshold in nanoseconds or -1 if disabled
+	 */
+	public long getSlowListenerThreshold() {
+		return slowThreshold;
+	}
+
+	/**
+	 * Retrieves the metrics of a listener, creating them if needed
+	 *
+	 * @param listener  Listener name
+	 * @param eventType Event type
+	 * @return ListenerMetrics instance
+	 */
+	public ListenerMetrics getMetrics(String listener, Class<?> eventType) {
+		MetricsKey key = new MetricsKey();
+		key.listener = listener;
+		key.eventType = eventType;
+		return metrics.computeIfAbsent(key, t -> new ListenerMetrics(listener, eventType));
+	}
+
+	/**
+	 * Records a measured invocation
+	 *
+	 * @param listener Listener metrics
+	 * @param nanos    Duration in nanoseconds
+	 * @param failed   True if the listener threw a exception
+	 */
+	public void record(ListenerMetrics listener, long nanos, boolean failed) {
+		listener.record(nanos, failed);
+		long threshold = slowThreshold;
+		if (threshold != -1 && nanos > threshold) {
+			ISlowListenerHandler handler = slowHandler;
+			if (handler != null)
+				handler.onSlowListener(listener, nanos);
+		}
+	}
+
+	/**
+	 * Creates snapshots of the metrics of all listeners
+	 *
+	 * @return Array of ListenerMetricsSnapshot instances
+	 */
+	public ListenerMetricsSnapshot[] getSnapshots() {
+		ArrayList<ListenerMetricsSnapshot> snapshots = new ArrayList<ListenerMetricsSnapshot>();
+		for (ListenerMetrics m : metrics.values())
+			snapshots.add(m.snapshot(sampleRate));
+		return snapshots.toArray(t -> new ListenerMetricsSnapshot[t]);
+	}
+
+	/**
+	 * Creates snapshots of the metrics of all listeners of a event type
+	 *
+	 * @param eventType Event type
+	 * @return Array of ListenerMetricsSnapshot instances
+	 */
+	public ListenerMetricsSnapshot[] getSnapshots(Class<?> eventType) {
+		ArrayList<ListenerMetricsSnapshot> snapshots = new ArrayList<ListenerMetricsSnapshot>();
+		for (ListenerMetrics m : metrics.values()) {
+			if (m.getEventType() == eventType)
+				snapshots.add(m.snapshot(sampleRate));
+		}
+		return snapshots.toArray(t -> new ListenerMetricsSnapshot[t]);
+	}
+
+	/**
+	 * Resets all recorded metrics
+	 */
+	public void reset() {
+		metrics.clear();
+	}
+
+}
@@ -0,0 +1,21 @@
+package usr.skyswimmer.quicktoolsutils.events.metrics;
+
+/**
+ *
+ * Slow listener handler, called when a measured listener invocation goes over
+ * the slow listener threshold of a {@link EventListenerMetrics} instance
+ *
+ * @author Sky Swimmer
+ *
+ */
+public interface ISlowListenerHandler {
+
+	/**
+	 * Called when a listener invocation went over the slow listener threshold
+	 *
+	 * @param listener Metrics of the listener that was slow
+	 * @param nanos    Duration of the invocation in nanoseconds
+	 */
+	public void onSlowListener(ListenerMetrics listener, long nanos);
+
+}
@@ -0,0 +1,97 @@
+package usr.skyswimmer.quicktoolsutils.events.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Live metrics of a single listener (receiver class and method, or handler
+ * type) for a single event type, counters are striped so that concurrent
+ * dispatches do not contend
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ListenerMetrics {
+
+	private String listener;
+	private Class<?> eventType;
+
+	private LongAdder invocations = new LongAdder();
+	private LongAdder exceptions = new LongAdder();
+	private LongAdder totalNanos = new LongAdder();
+	private LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private LongAdder[] histogram = new LongAdder[64];
+
+	public ListenerMetrics(String listener, Class<?> eventType) {
+		this.listener = listener;
+		this.eventType = eventType;
+		for (int i = 0; i < histogram.length; i++)
+			histogram[i] = new LongAdder();
+	}
+
+	/**
+	 * Retrieves the listener name
+	 *
+	 * @return Listener name (eg. {@code com.example.Receiver:onJoin})
+	 */
+	public String getListener() {
+		return listener;
+	}
+
+	/**
+	 * Retrieves the event type
+	 *
+	 * @return Event type
+	 */
+	public Class<?> getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Records a measured invocation
+	 *
+	 * @param nanos  Duration in nanoseconds
+	 * @param failed True if the listener threw a exception
+	 */
+	public void record(long nanos, boolean failed) {
+		invocations.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		histogram[getBucket(nanos)].increment();
+		if (failed)
+			exceptions.increment();
+	}
+
+	/**
+	 * Resets all counters
+	 */
+	public void reset() {
+		invocations.reset();
+		exceptions.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (LongAdder bucket : histogram)
+			bucket.reset();
+	}
+
+	/**
+	 * Creates a snapshot of the current counters
+	 *
+	 * @param sampleRate Sample rate the counters were recorded with
+	 * @return ListenerMetricsSnapshot instance
+	 */
+	public ListenerMetricsSnapshot snapshot(int sampleRate) {
+		long[] buckets = new long[histogram.length];
+		for (int i = 0; i < buckets.length; i++)
+			buckets[i] = histogram[i].sum();
+		return new ListenerMetricsSnapshot(listener, eventType, sampleRate, invocations.sum(), exceptions.sum(),
+				totalNanos.sum(), maxNanos.get(), buckets);
+	}
+
+	static int getBucket(long nanos) {
+		// Bucket i holds durations below 2^i nanoseconds
+		return Math.min(63, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+}
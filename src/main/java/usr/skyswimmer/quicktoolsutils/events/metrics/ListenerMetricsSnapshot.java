@@ -0,0 +1,136 @@
+package usr.skyswimmer.quicktoolsutils.events.metrics;
+
+/**
+ *
+ * Point-in-time copy of the metrics of a listener
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class ListenerMetricsSnapshot {
+
+	private String listener;
+	private Class<?> eventType;
+	private int sampleRate;
+	private long measured;
+	private long exceptions;
+	private long totalNanos;
+	private long maxNanos;
+	private long[] histogram;
+
+	public ListenerMetricsSnapshot(String listener, Class<?> eventType, int sampleRate, long measured,
+			long exceptions, long totalNanos, long maxNanos, long[] histogram) {
+		this.listener = listener;
+		this.eventType = eventType;
+		this.sampleRate = sampleRate;
+		this.measured = measured;
+		this.exceptions = exceptions;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.histogram = histogram;
+	}
+
+	/**
+	 * Retrieves the listener name
+	 *
+	 * @return Listener name
+	 */
+	public String getListener() {
+		return listener;
+	}
+
+	/**
+	 * Retrieves the event type
+	 *
+	 * @return Event type
+	 */
+	public Class<?> getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Retrieves the amount of measured invocations
+	 *
+	 * @return Measured invocation count
+	 */
+	public long getMeasuredInvocations() {
+		return measured;
+	}
+
+	/**
+	 * Retrieves the estimated amount of invocations, the measured count scaled by
+	 * the sample rate
+	 *
+	 * @return Estimated invocation count
+	 */
+	public long getEstimatedInvocations() {
+		return measured * sampleRate;
+	}
+
+	/**
+	 * Retrieves the amount of measured invocations that threw a exception
+	 *
+	 * @return Exception count
+	 */
+	public long getExceptions() {
+		return exceptions;
+	}
+
+	/**
+	 * Retrieves the cumulative duration of all measured invocations
+	 *
+	 * @return Total duration in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Retrieves the average duration of a measured invocation
+	 *
+	 * @return Mean duration in nanoseconds
+	 */
+	public long getMeanNanos() {
+		return measured == 0 ? 0 : totalNanos / measured;
+	}
+
+	/**
+	 * Retrieves the longest measured invocation
+	 *
+	 * @return Maximum duration in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Retrieves a latency percentile, percentiles are read from a power-of-two
+	 * histogram and rounded up to the bucket bound
+	 *
+	 * @param percentile Percentile between 0 and 100 (eg. 99)
+	 * @return Duration in nanoseconds
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (measured == 0)
+			return 0;
+		long target = (long) Math.ceil(measured * (percentile / 100d));
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= target)
+				return Math.min(maxNanos, i == 0 ? 0 : (1L << i) - 1);
+		}
+		return maxNanos;
+	}
+
+	/**
+	 * Retrieves the raw latency histogram, bucket i counts invocations shorter
+	 * than 2^i nanoseconds
+	 *
+	 * @return Histogram array
+	 */
+	public long[] getHistogram() {
+		return histogram.clone();
+	}
+
+}
@@ -0,0 +1,39 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+/**
+ *
+ * Backpressure policies for bounded async dispatch, decides what happens to a
+ * dispatch submitted while the queue of its event type is full
+ *
+ * @author Sky Swimmer
+ *
+ */
+public enum BackpressurePolicy {
+
+	/**
+	 * Blocks the caller until the queue has room
+	 */
+	BLOCK,
+
+	/**
+	 * Dispatches the event synchronously on the calling thread
+	 */
+	CALLER_RUNS,
+
+	/**
+	 * Rejects the new dispatch
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Rejects the oldest pending dispatch to make room for the new one
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Replaces the pending dispatch of a event with the same coalescing key,
+	 * rejects the new dispatch if no such event is pending
+	 */
+	COALESCE
+
+}
@@ -0,0 +1,271 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import usr.skyswimmer.quicktoolsutils.events.EventBus;
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+
+/**
+ *
+ * Bounded async dispatch queue of a single event type, used by
+ * {@link EventBus#enableBoundedAsyncDispatch(Class, int, BackpressurePolicy)}.
+ * Pending dispatches are drained in order by a limited amount of workers, once
+ * the queue is full the {@link BackpressurePolicy} decides what happens to new
+ * dispatches. Rejected dispatches complete their task with a
+ * RejectedExecutionException.<br/>
+ * <br/>
+ * Note that the BLOCK policy deadlocks if a listener dispatches a event of the
+ * same type asynchronously while all workers are busy, use CALLER_RUNS for
+ * event types that are dispatched from their own listeners.
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class BoundedDispatchQueue {
+
+	private Class<?> eventType;
+	private int capacity;
+	private int workers;
+	private BackpressurePolicy policy;
+	private Executor executor;
+
+	private ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+	private int activeWorkers;
+	private AtomicLong rejected = new AtomicLong();
+
+	private static class Entry {
+		public EventObject event;
+		public AsyncTask<?> task;
+		public Runnable runnable;
+	}
+
+	/**
+	 * Creates a bounded dispatch queue
+	 *
+	 * @param eventType Event type dispatched through the queue
+	 * @param capacity  Maximum amount of pending dispatches
+	 * @param workers   Maximum amount of dispatches running at once
+	 * @param policy    Policy for dispatches submitted while the queue is full
+	 * @param executor  Executor to run workers on
+	 */
+	public BoundedDispatchQueue(Class<?> eventType, int capacity, int workers, BackpressurePolicy policy,
+			Executor executor) {
+		if (capacity <= 0 || workers <= 0)
+			throw new IllegalArgumentException("Capacity and worker count must be positive");
+		this.eventType = eventType;
+		this.capacity = capacity;
+		this.workers = workers;
+		this.policy = policy;
+		this.executor = executor;
+	}
+
+	/**
+	 * Submits a dispatch task
+	 *
+	 * @param <T>   Task result type
+	 * @param event Event the task dispatches
+	 * @param task  Task to run
+	 * @return AsyncTask instance
+	 */
+	public <T> AsyncTask<T> submit(EventObject event, AsyncTask<T> task) {
+		// Claim the task so it is not run elsewhere while pending
+		Entry entry = new Entry();
+		entry.event = event;
+		entry.task = task;
+		AsyncTask.runOn(task, r -> entry.runnable = r);
+		if (entry.runnable == null)
+			return task;
+
+		// Add to queue
+		Entry dropped = null;
+		boolean enqueue = true;
+		boolean startWorker = false;
+		synchronized (entries) {
+			if (entries.size() >= capacity) {
+				switch (policy) {
+
+				case BLOCK:
+					// Wait for room
+					while (entries.size() >= capacity) {
+						try {
+							entries.wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							dropped = entry;
+							enqueue = false;
+							break;
+						}
+					}
+					break;
+
+				case CALLER_RUNS:
+					enqueue = false;
+					break;
+
+				case DROP_NEWEST:
+					dropped = entry;
+					enqueue = false;
+					break;
+
+				case DROP_OLDEST:
+					dropped = entries.pollFirst();
+					break;
+
+				case COALESCE:
+					// Take the place of a pending event with the same key
+					dropped = entry;
+					enqueue = false;
+					Object key = event.getCoalescingKey();
+					if (key != null) {
+						for (Entry pending : entries) {
+							if (pending.event.getClass() == event.getClass()
+									&& key.equals(pending.event.getCoalescingKey())) {
+								dropped = new Entry();
+								dropped.event = pending.event;
+								dropped.task = pending.task;
+								pending.event = event;
+								pending.task = task;
+								pending.runnable = entry.runnable;
+								break;
+							}
+						}
+					}
+					break;
+
+				}
+			}
+			if (enqueue) {
+				entries.add(entry);
+				if (activeWorkers < workers) {
+					activeWorkers++;
+					startWorker = true;
+				}
+			}
+		}
+
+		// Reject dropped dispatch
+		if (dropped != null) {
+			rejected.incrementAndGet();
+			dropped.task.fail(new RejectedExecutionException(
+					"Async dispatch of " + dropped.event.getClass().getTypeName() + " rejected, queue full"));
+		}
+
+		// Run
+		if (!enqueue && dropped == null) {
+			try {
+				entry.runnable.run();
+			} catch (RuntimeException e) {
+				// Stored in the task
+			}
+		} else if (startWorker)
+			startWorker();
+		return task;
+	}
+
+	private void startWorker() {
+		try {
+			executor.execute(this::drain);
+		} catch (RuntimeException e) {
+			// Roll back the worker, fail what no other worker will drain
+			ArrayDeque<Entry> stranded = new ArrayDeque<Entry>();
+			synchronized (entries) {
+				activeWorkers--;
+				if (activeWorkers == 0) {
+					stranded.addAll(entries);
+					entries.clear();
+					entries.notifyAll();
+				}
+			}
+			for (Entry entry : stranded) {
+				rejected.incrementAndGet();
+				entry.task.fail(new RejectedExecutionException("Async dispatch of "
+						+ entry.event.getClass().getTypeName() + " rejected, could not start worker", e));
+			}
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			// Take the next entry
+			Entry entry;
+			synchronized (entries) {
+				entry = entries.pollFirst();
+				if (entry == null) {
+					activeWorkers--;
+					return;
+				}
+				entries.notifyAll();
+			}
+
+			// Dispatch
+			try {
+				entry.runnable.run();
+			} catch (RuntimeException e) {
+				// Stored in the task
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the event type of this queue
+	 *
+	 * @return Event type
+	 */
+	public Class<?> getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Retrieves the queue capacity
+	 *
+	 * @return Maximum amount of pending dispatches
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Retrieves the backpressure policy
+	 *
+	 * @return BackpressurePolicy value
+	 */
+	public BackpressurePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Retrieves the amount of dispatches waiting for a worker
+	 *
+	 * @return Queue depth
+	 */
+	public int getQueueDepth() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Retrieves the amount of running workers
+	 *
+	 * @return Active worker count
+	 */
+	public int getActiveWorkers() {
+		synchronized (entries) {
+			return activeWorkers;
+		}
+	}
+
+	/**
+	 * Retrieves the amount of dispatches rejected by the backpressure policy
+	 *
+	 * @return Rejected dispatch count
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+}
@@ -0,0 +1,297 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import usr.skyswimmer.quicktoolsutils.events.EventBus;
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+
+/**
+ * 
+ * Async event pipeline - a preallocated multi-producer ring buffer drained in
+ * batches by dedicated consumer threads, used by
+ * {@link EventBus#enableAsyncPipeline(int, int, int, PipelineWaitStrategy)}
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class EventPipeline implements Executor {
+
+	private static final long PARK_NANOS = 50000;
+
+	private Logger logger = LogManager.getLogger("EVENTBUS");
+
+	private EventBus bus;
+	private PipelineWaitStrategy waitStrategy;
+	private int batchSize;
+
+	private int mask;
+	private EventObject[] events;
+	private Runnable[] tasks;
+	private AtomicLongArray sequences;
+	private AtomicLong producerPosition = new AtomicLong();
+	private AtomicLong consumerPosition = new AtomicLong();
+
+	private volatile boolean closed;
+	private ArrayList<Thread> consumers = new ArrayList<Thread>();
+
+	private ReentrantLock waitLock = new ReentrantLock();
+	private Condition notEmpty = waitLock.newCondition();
+	private Condition notFull = waitLock.newCondition();
+	private AtomicInteger waitingConsumers = new AtomicInteger();
+	private AtomicInteger waitingProducers = new AtomicInteger();
+	private AtomicInteger activeProducers = new AtomicInteger();
+
+	/**
+	 * Creates and starts a event pipeline
+	 * 
+	 * @param bus             Event bus to dispatch events on
+	 * @param capacity        Pipeline capacity, rounded up to a power of two
+	 * @param consumerThreads Amount of consumer threads
+	 * @param batchSize       Maximum amount of entries a consumer claims at once
+	 * @param waitStrategy    Wait strategy for consumers and producers
+	 */
+	public EventPipeline(EventBus bus, int capacity, int consumerThreads, int batchSize,
+			PipelineWaitStrategy waitStrategy) {
+		if (capacity <= 0 || consumerThreads <= 0 || batchSize <= 0)
+			throw new IllegalArgumentException("Capacity, consumer thread count and batch size must be positive");
+		this.bus = bus;
+		this.waitStrategy = waitStrategy;
+		this.batchSize = batchSize;
+
+		// Preallocate
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		mask = size - 1;
+		events = new EventObject[size];
+		tasks = new Runnable[size];
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+
+		// Start consumers
+		for (int i = 0; i < consumerThreads; i++) {
+			Thread th = new Thread(this::consume, "Event pipeline thread");
+			th.setDaemon(true);
+			consumers.add(th);
+			th.start();
+		}
+	}
+
+	/**
+	 * Retrieves the pipeline capacity
+	 * 
+	 * @return Maximum amount of pending entries
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Retrieves the amount of entries waiting to be dispatched
+	 * 
+	 * @return Pipeline queue depth
+	 */
+	public int getQueueDepth() {
+		return (int) Math.max(0, producerPosition.get() - consumerPosition.get());
+	}
+
+	/**
+	 * Posts an event to the pipeline, blocks while the pipeline is full
+	 * 
+	 * @param event Event to dispatch
+	 */
+	public void post(EventObject event) {
+		publish(event, null);
+	}
+
+	/**
+	 * Posts a task to the pipeline, blocks while the pipeline is full
+	 * 
+	 * @param task Task to run on a consumer thread
+	 */
+	@Override
+	public void execute(Runnable task) {
+		publish(null, task);
+	}
+
+	private void publish(EventObject event, Runnable task) {
+		// Register before checking if closed, consumers only exit once no producer is
+		// active so a claimed cell cannot be left behind
+		activeProducers.incrementAndGet();
+		try {
+			publishCell(event, task);
+		} finally {
+			activeProducers.decrementAndGet();
+		}
+	}
+
+	private void publishCell(EventObject event, Runnable task) {
+		int spins = 0;
+		while (true) {
+			if (closed)
+				throw new IllegalStateException("Event pipeline has been shut down");
+
+			// Claim a cell
+			long pos = producerPosition.get();
+			int index = (int) (pos & mask);
+			long dif = sequences.get(index) - pos;
+			if (dif == 0) {
+				if (producerPosition.compareAndSet(pos, pos + 1)) {
+					// Publish
+					events[index] = event;
+					tasks[index] = task;
+					sequences.set(index, pos + 1);
+					if (waitingConsumers.get() != 0)
+						signal(notEmpty);
+					return;
+				}
+			} else if (dif < 0) {
+				// Full, wait for consumers
+				spins = await(spins, true);
+			}
+		}
+	}
+
+	private void consume() {
+		int spins = 0;
+		while (true) {
+			// Find a batch of published cells
+			long pos = consumerPosition.get();
+			int count = 0;
+			while (count < batchSize && sequences.get((int) ((pos + count) & mask)) == pos + count + 1)
+				count++;
+			if (count == 0) {
+				if (closed && activeProducers.get() == 0 && producerPosition.get() == pos)
+					return;
+				spins = await(spins, false);
+				continue;
+			}
+			if (!consumerPosition.compareAndSet(pos, pos + count))
+				continue;
+			spins = 0;
+
+			// Drain the batch
+			for (long p = pos; p < pos + count; p++) {
+				int index = (int) (p & mask);
+				EventObject event = events[index];
+				Runnable task = tasks[index];
+				events[index] = null;
+				tasks[index] = null;
+				sequences.set(index, p + mask + 1);
+				if (waitingProducers.get() != 0)
+					signal(notFull);
+
+				// Dispatch
+				try {
+					if (task != null)
+						task.run();
+					else
+						bus.dispatchEvent(event);
+				} catch (Exception e) {
+					if (task == null)
+						logger.error("An error occurred while dispatching " + event.getClass().getTypeName()
+								+ " from the event pipeline", e);
+				}
+			}
+		}
+	}
+
+	private int await(int spins, boolean producer) {
+		switch (waitStrategy) {
+		case SPIN:
+			Thread.onSpinWait();
+			break;
+		case YIELD:
+			Thread.yield();
+			break;
+		case PARK:
+			// Spin briefly before parking
+			if (spins < 100)
+				Thread.onSpinWait();
+			else
+				LockSupport.parkNanos(PARK_NANOS);
+			break;
+		case BLOCK:
+			// Spin briefly before blocking
+			if (spins < 100)
+				Thread.onSpinWait();
+			else
+				block(producer);
+			break;
+		}
+		return spins + 1;
+	}
+
+	private void block(boolean producer) {
+		AtomicInteger waiting = producer ? waitingProducers : waitingConsumers;
+		waitLock.lock();
+		try {
+			// Register before checking again, publishers and consumers check the waiter
+			// count after updating a cell so the wakeup cannot be missed
+			waiting.incrementAndGet();
+			try {
+				if (producer) {
+					long pos = producerPosition.get();
+					if (!closed && sequences.get((int) (pos & mask)) < pos)
+						notFull.awaitUninterruptibly();
+				} else {
+					long pos = consumerPosition.get();
+					if (!closed && sequences.get((int) (pos & mask)) != pos + 1)
+						notEmpty.awaitUninterruptibly();
+				}
+			} finally {
+				waiting.decrementAndGet();
+			}
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	private void signal(Condition condition) {
+		waitLock.lock();
+		try {
+			condition.signalAll();
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting new entries and lets the consumer threads exit once the
+	 * pipeline has been drained
+	 */
+	public void shutdown() {
+		closed = true;
+		waitLock.lock();
+		try {
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			waitLock.unlock();
+		}
+	}
+
+	/**
+	 * Shuts down the pipeline and waits for the consumer threads to finish
+	 * draining it
+	 * 
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void shutdownAndWait() throws InterruptedException {
+		shutdown();
+		for (Thread th : consumers)
+			th.join();
+	}
+
+}
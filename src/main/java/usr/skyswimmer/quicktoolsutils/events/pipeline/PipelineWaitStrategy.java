@@ -0,0 +1,34 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+/**
+ * 
+ * Wait strategies for event pipelines, used both by consumer threads waiting
+ * for events and by producers waiting for a full pipeline to drain
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public enum PipelineWaitStrategy {
+
+	/**
+	 * Busy-spins, lowest latency but keeps a core busy per waiting thread
+	 */
+	SPIN,
+
+	/**
+	 * Yields the thread between checks
+	 */
+	YIELD,
+
+	/**
+	 * Parks the thread briefly between checks, lowest CPU use but adds latency
+	 */
+	PARK,
+
+	/**
+	 * Spins briefly, then blocks until signalled, no CPU use while idle at the
+	 * cost of a signal per publish while threads are waiting
+	 */
+	BLOCK
+
+}
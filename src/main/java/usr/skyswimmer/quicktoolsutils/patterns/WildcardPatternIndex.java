@@ -0,0 +1,309 @@
+package usr.skyswimmer.quicktoolsutils.patterns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * Index of many wildcard patterns over separated segments (eg.
+ * {@code player.*.join}), matching a text only walks the segments of the text
+ * instead of every pattern in the index. A {@code *} segment matches exactly one
+ * segment, segments mixing text and wildcards are matched with
+ * {@link WildcardPatternMatcher} within that segment, and a trailing {@code **}
+ * segment matches all remaining segments. The text captured by each wildcard
+ * is passed on as a parameter. Matching values are reported in the order they
+ * were added.<br/>
+ * <br/>
+ * Matching never blocks, changes are made under a lock and publish new
+ * arrays or map entries.
+ *
+ * @author Sky Swimmer
+ *
+ * @param <T> Value type
+ */
+public class WildcardPatternIndex<T> {
+
+	private char separator;
+	private Node root = new Node();
+
+	private long nextSequence;
+
+	private static class Entry {
+		public String pattern;
+		public Object value;
+		public long sequence;
+	}
+
+	private static class Match {
+		public Entry entry;
+		public String[] params;
+	}
+
+	private static class PatternEdge {
+		public String segment;
+		public WildcardPatternMatcher matcher;
+		public Node node;
+	}
+
+	private static class Node {
+		public volatile ConcurrentHashMap<String, Node> literals;
+		public volatile Node wildcard;
+		public volatile PatternEdge[] patterns = new PatternEdge[0];
+		public volatile Entry[] values = new Entry[0];
+		public volatile Entry[] rest = new Entry[0];
+
+		public boolean isEmpty() {
+			return (literals == null || literals.isEmpty()) && wildcard == null && patterns.length == 0
+					&& values.length == 0 && rest.length == 0;
+		}
+	}
+
+	public WildcardPatternIndex(char separator) {
+		this.separator = separator;
+	}
+
+	/**
+	 * Adds a pattern to the index
+	 *
+	 * @param pattern Pattern string
+	 * @param value   Value to return for texts matching the pattern
+	 */
+	public void add(String pattern, T value) {
+		String[] segments = split(pattern);
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (segments[i].equals("**"))
+				throw new IllegalArgumentException("'**' is only supported as the last segment of a pattern");
+		}
+		Entry entry = new Entry();
+		entry.pattern = pattern;
+		entry.value = value;
+		synchronized (root) {
+			// Find or create the node of the pattern
+			entry.sequence = nextSequence++;
+			Node node = root;
+			for (int i = 0; i < segments.length; i++) {
+				String segment = segments[i];
+				if (segment.equals("**")) {
+					node.rest = append(node.rest, entry);
+					return;
+				} else if (segment.equals("*")) {
+					if (node.wildcard == null)
+						node.wildcard = new Node();
+					node = node.wildcard;
+				} else if (segment.contains("*")) {
+					int e = findPatternEdge(node, segment);
+					if (e == -1) {
+						PatternEdge edge = new PatternEdge();
+						edge.segment = segment;
+						edge.matcher = new WildcardPatternMatcher(segment);
+						edge.node = new Node();
+						node.patterns = append(node.patterns, edge);
+						node = edge.node;
+					} else
+						node = node.patterns[e].node;
+				} else {
+					if (node.literals == null)
+						node.literals = new ConcurrentHashMap<String, Node>();
+					node = node.literals.computeIfAbsent(segment, t -> new Node());
+				}
+			}
+			node.values = append(node.values, entry);
+		}
+	}
+
+	/**
+	 * Removes a pattern from the index
+	 *
+	 * @param pattern Pattern string
+	 * @param value   Value that was added with the pattern
+	 * @return True if removed, false otherwise
+	 */
+	public boolean remove(String pattern, T value) {
+		String[] segments = split(pattern);
+		synchronized (root) {
+			return delete(root, segments, 0, pattern, value);
+		}
+	}
+
+	/**
+	 * Finds all values with a pattern matching the given text, values are passed
+	 * in the order they were added
+	 *
+	 * @param text     Text to match
+	 * @param consumer Consumer called with each matching value and the parameters
+	 *                 captured by its pattern
+	 */
+	@SuppressWarnings("unchecked")
+	public void match(String text, BiConsumer<T, String[]> consumer) {
+		// Collect matches
+		ArrayList<Match> matches = new ArrayList<Match>();
+		match(root, split(text), 0, new ArrayList<String>(), matches);
+
+		// Walk order depends on the shape of the patterns, restore registration order
+		if (matches.size() > 1)
+			matches.sort((a, b) -> Long.compare(a.entry.sequence, b.entry.sequence));
+		for (Match m : matches)
+			consumer.accept((T) m.entry.value, m.params);
+	}
+
+	/**
+	 * Checks if the index contains no patterns
+	 *
+	 * @return True if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return root.isEmpty();
+	}
+
+	private void match(Node node, String[] segments, int index, ArrayList<String> params, ArrayList<Match> matches) {
+		if (index == segments.length) {
+			// End of text
+			Entry[] values = node.values;
+			if (values.length != 0) {
+				String[] captured = params.toArray(t -> new String[t]);
+				for (Entry e : values)
+					addMatch(matches, e, captured);
+			}
+			return;
+		}
+
+		// Match the remaining segments
+		Entry[] rest = node.rest;
+		if (rest.length != 0) {
+			params.add(join(segments, index));
+			String[] captured = params.toArray(t -> new String[t]);
+			params.remove(params.size() - 1);
+			for (Entry e : rest)
+				addMatch(matches, e, captured);
+		}
+
+		// Literal segment
+		String segment = segments[index];
+		ConcurrentHashMap<String, Node> literals = node.literals;
+		if (literals != null) {
+			Node next = literals.get(segment);
+			if (next != null)
+				match(next, segments, index + 1, params, matches);
+		}
+
+		// Wildcard segment
+		Node wildcard = node.wildcard;
+		if (wildcard != null) {
+			params.add(segment);
+			match(wildcard, segments, index + 1, params, matches);
+			params.remove(params.size() - 1);
+		}
+
+		// Patterned segments
+		for (PatternEdge edge : node.patterns) {
+			PatternMatchResult res = edge.matcher.match(segment);
+			if (res.isMatch()) {
+				int size = params.size();
+				params.addAll(Arrays.asList(res.getParameters()));
+				match(edge.node, segments, index + 1, params, matches);
+				while (params.size() > size)
+					params.remove(params.size() - 1);
+			}
+		}
+	}
+
+	private static void addMatch(ArrayList<Match> matches, Entry entry, String[] params) {
+		Match m = new Match();
+		m.entry = entry;
+		m.params = params;
+		matches.add(m);
+	}
+
+	private boolean delete(Node node, String[] segments, int index, String pattern, Object value) {
+		if (index == segments.length) {
+			Entry[] values = node.values;
+			node.values = removeEntry(values, pattern, value);
+			return node.values != values;
+		}
+
+		// Find edge
+		String segment = segments[index];
+		if (segment.equals("**")) {
+			Entry[] rest = node.rest;
+			node.rest = removeEntry(rest, pattern, value);
+			return node.rest != rest;
+		} else if (segment.equals("*")) {
+			Node next = node.wildcard;
+			if (next == null || !delete(next, segments, index + 1, pattern, value))
+				return false;
+			if (next.isEmpty())
+				node.wildcard = null;
+		} else if (segment.contains("*")) {
+			int i = findPatternEdge(node, segment);
+			if (i == -1 || !delete(node.patterns[i].node, segments, index + 1, pattern, value))
+				return false;
+			if (node.patterns[i].node.isEmpty()) {
+				PatternEdge[] patterns = new PatternEdge[node.patterns.length - 1];
+				System.arraycopy(node.patterns, 0, patterns, 0, i);
+				System.arraycopy(node.patterns, i + 1, patterns, i, node.patterns.length - i - 1);
+				node.patterns = patterns;
+			}
+		} else {
+			Node next = node.literals == null ? null : node.literals.get(segment);
+			if (next == null || !delete(next, segments, index + 1, pattern, value))
+				return false;
+			if (next.isEmpty())
+				node.literals.remove(segment);
+		}
+		return true;
+	}
+
+	private int findPatternEdge(Node node, String segment) {
+		for (int i = 0; i < node.patterns.length; i++) {
+			if (node.patterns[i].segment.equals(segment))
+				return i;
+		}
+		return -1;
+	}
+
+	private static <E> E[] append(E[] arr, E value) {
+		E[] newArr = Arrays.copyOf(arr, arr.length + 1);
+		newArr[arr.length] = value;
+		return newArr;
+	}
+
+	private static Entry[] removeEntry(Entry[] entries, String pattern, Object value) {
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i].pattern.equals(pattern) && entries[i].value.equals(value)) {
+				Entry[] newEntries = new Entry[entries.length - 1];
+				System.arraycopy(entries, 0, newEntries, 0, i);
+				System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+				return newEntries;
+			}
+		}
+		return entries;
+	}
+
+	private String[] split(String text) {
+		ArrayList<String> segments = new ArrayList<String>();
+		int start = 0;
+		while (true) {
+			int end = text.indexOf(separator, start);
+			if (end == -1) {
+				segments.add(text.substring(start));
+				break;
+			}
+			segments.add(text.substring(start, end));
+			start = end + 1;
+		}
+		return segments.toArray(t -> new String[t]);
+	}
+
+	private String join(String[] segments, int start) {
+		StringBuilder b = new StringBuilder();
+		for (int i = start; i < segments.length; i++) {
+			if (i != start)
+				b.append(separator);
+			b.append(segments[i]);
+		}
+		return b.toString();
+	}
+
+}
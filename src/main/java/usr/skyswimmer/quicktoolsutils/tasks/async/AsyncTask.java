@@ -1,6 +1,7 @@
 package usr.skyswimmer.quicktoolsutils.tasks.async;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -169,6 +170,20 @@ public class AsyncTask<T> {
 		return AsyncTaskManager.runAsync(task);
 	}
 
+	/**
+	 * Runs a task on a specific executor instead of the async task threads
+	 * 
+	 * @param <T>      Return type
+	 * @param task     Task to run
+	 * @param executor Executor to hand the task to
+	 * @return AsyncTask instance
+	 * @throws RuntimeException If the executor rejects the task, the task is
+	 *                          failed with the same exception
+	 */
+	public static <T> AsyncTask<T> runOn(AsyncTask<T> task, Executor executor) {
+		return AsyncTaskManager.runOn(task, executor);
+	}
+
 	/**
 	 * Runs a task asynchronously
 	 * 
@@ -290,10 +305,12 @@ public class AsyncTask<T> {
 				result = action.get();
 			else
 				actionR.run();
-			completedEvent.dispatchEvent(new TaskCompletedEvent<T>(result));
+			if (completedEvent.hasListeners())
+				completedEvent.dispatchEvent(new TaskCompletedEvent<T>(result));
 		} catch (Exception e) {
 			error = e;
-			errorEvent.dispatchEvent(new TaskErroredEvent(e));
+			if (errorEvent.hasListeners())
+				errorEvent.dispatchEvent(new TaskErroredEvent(e));
 			throw e;
 		} finally {
 			// Release
@@ -304,6 +321,33 @@ public class AsyncTask<T> {
 		}
 	}
 
+	/**
+	 * Completes a task that has not started with a error instead of running it,
+	 * used by executors that drop queued tasks
+	 * 
+	 * @param error Error to complete the task with
+	 * @return True if the task was completed, false if it already started
+	 */
+	public boolean fail(Exception error) {
+		synchronized (lock) {
+			if (running || run)
+				return false;
+			running = true;
+			this.error = error;
+		}
+		try {
+			if (errorEvent.hasListeners())
+				errorEvent.dispatchEvent(new TaskErroredEvent(error));
+		} finally {
+			// Release
+			synchronized (lock) {
+				run = true;
+				lock.notifyAll();
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Runs the the task synchronously
 	 */
@@ -1,6 +1,7 @@
 package usr.skyswimmer.quicktoolsutils.tasks.async;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -157,4 +158,30 @@ public class AsyncTaskManager {
 		}
 	}
 
+	/**
+	 * Runs a task on a specific executor instead of the async task threads
+	 * 
+	 * @param <T>      Return type
+	 * @param task     Task to run
+	 * @param executor Executor to hand the task to
+	 * @return AsyncTask instance
+	 * @throws RuntimeException If the executor rejects the task, the task is
+	 *                          failed with the same exception
+	 */
+	public static <T> AsyncTask<T> runOn(AsyncTask<T> task, Executor executor) {
+		if (task.hasCompleted())
+			return task;
+		if (task.slatedForAsyncRun || task.running)
+			return task;
+		task.slatedForAsyncRun = true;
+		try {
+			executor.execute(task::run);
+		} catch (RuntimeException e) {
+			// Rejected, complete the task with the error so nobody waits on it forever
+			task.fail(e);
+			throw e;
+		}
+		return task;
+	}
+
 }
@@ -0,0 +1,69 @@
+package usr.skyswimmer.quicktoolsutils.tasks.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *
+ * Virtual thread support - detects at runtime if virtual threads are available,
+ * the library targets Java 17 so the virtual thread executor is looked up
+ * through reflection
+ *
+ * @author Sky Swimmer
+ *
+ */
+public class VirtualThreadSupport {
+
+	private static ExecutorService executor;
+	private static volatile boolean checked;
+
+	/**
+	 * Checks if the runtime supports virtual threads
+	 *
+	 * @return True if supported, false otherwise
+	 */
+	public static boolean isSupported() {
+		return getExecutor() != null;
+	}
+
+	/**
+	 * Retrieves the shared virtual thread executor, each task runs on a new
+	 * virtual thread
+	 *
+	 * @return ExecutorService instance or null if virtual threads are not
+	 *         supported
+	 */
+	public static ExecutorService getExecutor() {
+		if (checked)
+			return executor;
+		synchronized (VirtualThreadSupport.class) {
+			if (!checked) {
+				try {
+					executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+							.invoke(null);
+				} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+					// Not available, or a preview feature that is not enabled
+					executor = null;
+				}
+				checked = true;
+			}
+			return executor;
+		}
+	}
+
+	/**
+	 * Runs a task on a virtual thread
+	 *
+	 * @param <T>  Return type
+	 * @param task Task to run
+	 * @return AsyncTask instance
+	 * @throws UnsupportedOperationException If virtual threads are not supported
+	 */
+	public static <T> AsyncTask<T> runVirtual(AsyncTask<T> task) {
+		ExecutorService executor = getExecutor();
+		if (executor == null)
+			throw new UnsupportedOperationException("Virtual threads are not supported by this runtime");
+		return AsyncTask.runOn(task, executor);
+	}
+
+}
@@ -75,7 +75,8 @@ public class Promise<T> {
 	 * Calls the promise completion events
 	 */
 	public void callComplete() {
-		completedEvent.dispatchEvent(new TaskCompletedEvent<T>(null));
+		if (completedEvent.hasListeners())
+			completedEvent.dispatchEvent(new TaskCompletedEvent<T>(null));
 		synchronized (lock) {
 			run = true;
 			lock.notifyAll();
@@ -87,7 +88,8 @@ public class Promise<T> {
 	 */
 	public void callComplete(T result) {
 		this.result = result;
-		completedEvent.dispatchEvent(new TaskCompletedEvent<T>(result));
+		if (completedEvent.hasListeners())
+			completedEvent.dispatchEvent(new TaskCompletedEvent<T>(result));
 		synchronized (lock) {
 			run = true;
 			lock.notifyAll();
@@ -99,7 +101,8 @@ public class Promise<T> {
 	 */
 	public void callError(Exception exception) {
 		error = exception;
-		errorEvent.dispatchEvent(new TaskErroredEvent(exception));
+		if (errorEvent.hasListeners())
+			errorEvent.dispatchEvent(new TaskErroredEvent(exception));
 	}
 
 	/**
@@ -107,11 +107,13 @@ public class TaskScheduler {
 					if (System.getProperty("debugMode") == null) {
 						try {
 							task.action.run();
-							task.completedEvent.dispatchEvent(new ScheduledTaskCompletedEvent());
+							if (task.completedEvent.hasListeners())
+								task.completedEvent.dispatchEvent(new ScheduledTaskCompletedEvent());
 						} catch (Exception e) {
 							logger.error("An error occurred while running a scheduled task", e);
 							task.error = e;
-							task.errorEvent.dispatchEvent(new ScheduledTaskErroredEvent(e));
+							if (task.errorEvent.hasListeners())
+								task.errorEvent.dispatchEvent(new ScheduledTaskErroredEvent(e));
 							throw e;
 						}
 					} else
@@ -141,11 +143,13 @@ public class TaskScheduler {
 				AsyncTask.runAsync(() -> {
 					try {
 						task.action.run();
-						task.completedEvent.dispatchEvent(new ScheduledTaskCompletedEvent());
+						if (task.completedEvent.hasListeners())
+							task.completedEvent.dispatchEvent(new ScheduledTaskCompletedEvent());
 					} catch (Exception e) {
 						logger.error("An error occurred while running a scheduled task", e);
 						task.error = e;
-						task.errorEvent.dispatchEvent(new ScheduledTaskErroredEvent(e));
+						if (task.errorEvent.hasListeners())
+							task.errorEvent.dispatchEvent(new ScheduledTaskErroredEvent(e));
 						throw e;
 					} finally {
 						synchronized (task.lock) {
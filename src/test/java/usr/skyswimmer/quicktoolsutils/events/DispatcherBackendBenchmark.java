@@ -0,0 +1,67 @@
+package usr.skyswimmer.quicktoolsutils.events;
+
+/**
+ * 
+ * Small benchmark comparing the dispatch cost of the ASM and hidden class
+ * dispatcher backends, run with the dispatcherBenchmark gradle task
+ * 
+ * @author Sky Swimmer
+ *
+ */
+public class DispatcherBackendBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+	private static final int DISPATCHES = 1_000_000;
+
+	public static class BenchmarkEvent extends EventObject {
+		public long counter;
+	}
+
+	public static class BenchmarkReceiver implements IEventReceiver {
+
+		@EventListener
+		public void onEvent(BenchmarkEvent event) {
+			event.counter++;
+		}
+
+		@EventListener
+		public void onEventSecond(BenchmarkEvent event) {
+			event.counter += 2;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		for (DispatcherBackend backend : DispatcherBackend.values()) {
+			// Create bus
+			EventBus bus = EventBus.getInstance().createBus();
+			bus.setDispatcherBackend(backend);
+			bus.addAllEventsFromReceiver(new BenchmarkReceiver());
+
+			// Warm up
+			BenchmarkEvent event = new BenchmarkEvent();
+			for (int i = 0; i < WARMUP_ROUNDS; i++)
+				run(bus, event);
+
+			// Measure
+			long best = Long.MAX_VALUE;
+			long total = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				long time = run(bus, event);
+				best = Math.min(best, time);
+				total += time;
+			}
+			System.out.println(String.format("%-12s best %6.2f ns/dispatch, mean %6.2f ns/dispatch (counter %d)",
+					backend, (double) best / DISPATCHES, (double) total / ROUNDS / DISPATCHES, event.counter));
+		}
+	}
+
+	private static long run(EventBus bus, BenchmarkEvent event) {
+		long start = System.nanoTime();
+		for (int i = 0; i < DISPATCHES; i++)
+			bus.dispatchEvent(event);
+		return System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,181 @@
+package usr.skyswimmer.quicktoolsutils.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import usr.skyswimmer.quicktoolsutils.events.pipeline.BackpressurePolicy;
+import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+
+public class EventBusTest {
+
+	public static class TestEvent extends EventObject {
+		public String topic;
+
+		@Override
+		public String getTopic() {
+			return topic;
+		}
+	}
+
+	public static class TestSupplierEvent extends SupplierEventObject<String> {
+	}
+
+	public static class TestReceiver implements IEventReceiver {
+		public int calls;
+
+		@EventListener
+		public void onEvent(TestEvent event) {
+			calls++;
+		}
+	}
+
+	public static class SlowReceiver implements IEventReceiver {
+		@EventListener
+		public void onEvent(TestEvent event) throws InterruptedException {
+			Thread.sleep(50);
+		}
+	}
+
+	public static class SpillableReceiver implements IEventReceiver {
+		public CountDownLatch latch;
+
+		public SpillableReceiver(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@EventListener(spillable = true)
+		public void onEvent(TestEvent event) {
+			latch.countDown();
+		}
+	}
+
+	private static EventBus createBus(DispatcherBackend backend) {
+		EventBus bus = EventBus.getInstance().createBus();
+		bus.setDispatcherBackend(backend);
+		return bus;
+	}
+
+	@Test
+	public void compiledChainDropsRemovedReceivers() {
+		for (DispatcherBackend backend : DispatcherBackend.values()) {
+			EventBus bus = createBus(backend);
+			TestReceiver removed = new TestReceiver();
+			TestReceiver kept = new TestReceiver();
+			bus.addAllEventsFromReceiver(removed);
+			bus.addAllEventsFromReceiver(kept);
+
+			// Dispatch enough events for the chain to be compiled
+			TestEvent event = new TestEvent();
+			for (int i = 0; i < 5000; i++)
+				bus.dispatchEvent(event);
+			assertEquals(5000, removed.calls, backend.toString());
+
+			// Removed receivers must not be called by the compiled chain
+			bus.removeAllEventsFromReceiver(removed);
+			for (int i = 0; i < 5000; i++)
+				bus.dispatchEvent(event);
+			assertEquals(5000, removed.calls, backend.toString());
+			assertEquals(10000, kept.calls, backend.toString());
+		}
+	}
+
+	@Test
+	public void handledEventsStopDispatch() {
+		EventBus bus = createBus(DispatcherBackend.ASM);
+		List<String> calls = new ArrayList<String>();
+		bus.addEventHandler(TestEvent.class, (Consumer<TestEvent>) e -> {
+			calls.add("first");
+			e.setHandled();
+		});
+		bus.addEventHandler(TestEvent.class, (Consumer<TestEvent>) e -> calls.add("second"));
+		for (int i = 0; i < 2000; i++)
+			bus.dispatchEvent(new TestEvent());
+		assertFalse(calls.contains("second"));
+	}
+
+	@Test
+	public void topicHandlersRunInRegistrationOrder() {
+		EventBus bus = createBus(DispatcherBackend.ASM);
+		List<String> calls = new ArrayList<String>();
+		bus.addTopicHandler(TestEvent.class, "player.**", (e, params) -> calls.add("rest"));
+		bus.addTopicHandler(TestEvent.class, "player.*.join", (e, params) -> calls.add("wildcard"));
+		bus.addTopicHandler(TestEvent.class, "player.x.join", (e, params) -> {
+			calls.add("literal");
+			e.setHandled();
+		});
+		bus.addTopicHandler(TestEvent.class, "player.x.*", (e, params) -> calls.add("late"));
+
+		TestEvent event = new TestEvent();
+		event.topic = "player.x.join";
+		bus.dispatchEvent(event);
+		assertEquals(List.of("rest", "wildcard", "literal"), calls);
+	}
+
+	@Test
+	public void firstResultWinsOnBlockingListeners() throws Exception {
+		EventBus bus = createBus(DispatcherBackend.ASM);
+		for (int i = 0; i < 4; i++) {
+			bus.addEventHandler(TestSupplierEvent.class, (Consumer<TestSupplierEvent>) e -> {
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException ex) {
+				}
+				e.setResult("slow");
+			});
+		}
+		bus.addEventHandler(TestSupplierEvent.class, (Consumer<TestSupplierEvent>) e -> e.setResult("fast"));
+
+		// The fast result must not wait for the slow listeners
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			AsyncTask<String> task = bus.dispatchFirstResult(new TestSupplierEvent(), executor);
+			assertEquals("fast", task.await());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals("fast", bus.dispatchFirstResult(new TestSupplierEvent()).await());
+	}
+
+	@Test
+	public void deadlineSpillsBypassBoundedQueues() throws InterruptedException {
+		EventBus bus = createBus(DispatcherBackend.ASM);
+		CountDownLatch latch = new CountDownLatch(2);
+		TestReceiver skipped = new TestReceiver();
+		bus.addAllEventsFromReceiver(new SlowReceiver());
+		bus.addAllEventsFromReceiver(new SpillableReceiver(latch));
+		bus.addAllEventsFromReceiver(new SpillableReceiver(latch));
+		bus.addAllEventsFromReceiver(skipped);
+
+		// Coalescing must not merge the spills of the two listeners
+		bus.enableBoundedAsyncDispatch(TestEvent.class, 1, BackpressurePolicy.COALESCE);
+		assertFalse(bus.dispatchEventWithin(new TestEvent(), 10, TimeUnit.MILLISECONDS));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(0, skipped.calls);
+		assertEquals(2, bus.getDeadlineSpilledListeners());
+		assertEquals(1, bus.getDeadlineSkippedListeners());
+	}
+
+	@Test
+	public void boundedDispatchIsRejectedOnShardedBus() {
+		EventBus bus = EventBus.getInstance().createShardedBus(2, 16);
+		try {
+			assertThrows(IllegalStateException.class,
+					() -> bus.enableBoundedAsyncDispatch(TestEvent.class, 4, BackpressurePolicy.BLOCK));
+		} finally {
+			bus.closeAffinityLanes();
+		}
+	}
+
+}
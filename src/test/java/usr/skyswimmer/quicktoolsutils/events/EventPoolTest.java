@@ -0,0 +1,58 @@
+package usr.skyswimmer.quicktoolsutils.events;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class EventPoolTest {
+
+	public static class TestEvent extends SupplierEventObject<String> {
+	}
+
+	@Test
+	public void releasedEventsAreRecycledAndReset() {
+		EventPool<TestEvent> pool = new EventPool<TestEvent>(TestEvent::new, 4);
+		TestEvent event = pool.acquire();
+		event.setResult("value");
+		pool.release(event);
+
+		TestEvent reused = pool.acquire();
+		assertSame(event, reused);
+		assertFalse(reused.isHandled());
+		assertFalse(reused.hasResult());
+	}
+
+	@Test
+	public void doubleReleaseThrows() {
+		EventPool<TestEvent> pool = new EventPool<TestEvent>(TestEvent::new, 4);
+		TestEvent event = pool.acquire();
+		pool.release(event);
+		assertThrows(IllegalStateException.class, () -> pool.release(event));
+
+		// Acquiring the event again makes it releasable
+		pool.release(pool.acquire());
+	}
+
+	@Test
+	public void doubleReleaseThrowsWhenPoolIsFull() {
+		EventPool<TestEvent> pool = new EventPool<TestEvent>(TestEvent::new, 0);
+		TestEvent event = pool.acquire();
+		pool.release(event);
+		assertThrows(IllegalStateException.class, () -> pool.release(event));
+	}
+
+	@Test
+	public void useAfterReleaseIsDetected() {
+		EventPool<TestEvent> pool = new EventPool<TestEvent>(TestEvent::new, 4);
+		pool.setUseAfterReleaseDetection(true);
+		TestEvent event = pool.acquire();
+		pool.release(event);
+		assertThrows(IllegalStateException.class, () -> event.setHandled());
+		assertThrows(IllegalStateException.class, () -> event.getResult());
+		assertNotSame(event, pool.acquire());
+	}
+
+}
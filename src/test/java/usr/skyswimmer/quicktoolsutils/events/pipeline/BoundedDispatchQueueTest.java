@@ -0,0 +1,136 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import usr.skyswimmer.quicktoolsutils.events.EventObject;
+import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+
+public class BoundedDispatchQueueTest {
+
+	public static class TestEvent extends EventObject {
+		public int id;
+		public Object key;
+
+		public TestEvent(int id, Object key) {
+			this.id = id;
+			this.key = key;
+		}
+
+		@Override
+		public Object getCoalescingKey() {
+			return key;
+		}
+	}
+
+	private List<Runnable> workers = new ArrayList<Runnable>();
+	private List<Integer> order = new ArrayList<Integer>();
+
+	private BoundedDispatchQueue createQueue(BackpressurePolicy policy) {
+		// Workers are only run when the test drains them
+		return new BoundedDispatchQueue(TestEvent.class, 2, 1, policy, workers::add);
+	}
+
+	private AsyncTask<Void> submit(BoundedDispatchQueue queue, int id, Object key) {
+		TestEvent event = new TestEvent(id, key);
+		return queue.submit(event, AsyncTask.createTask(() -> {
+			synchronized (order) {
+				order.add(event.id);
+			}
+		}));
+	}
+
+	private void drain() {
+		while (!workers.isEmpty())
+			workers.remove(0).run();
+	}
+
+	@Test
+	public void dropNewestRejectsNewDispatch() {
+		BoundedDispatchQueue queue = createQueue(BackpressurePolicy.DROP_NEWEST);
+		submit(queue, 1, null);
+		submit(queue, 2, null);
+		AsyncTask<Void> dropped = submit(queue, 3, null);
+		assertTrue(dropped.hasErrored());
+		assertTrue(dropped.getError() instanceof RejectedExecutionException);
+		drain();
+		assertEquals(List.of(1, 2), order);
+		assertEquals(1, queue.getRejectedCount());
+		assertEquals(0, queue.getActiveWorkers());
+	}
+
+	@Test
+	public void dropOldestRejectsPendingDispatch() {
+		BoundedDispatchQueue queue = createQueue(BackpressurePolicy.DROP_OLDEST);
+		AsyncTask<Void> dropped = submit(queue, 1, null);
+		submit(queue, 2, null);
+		submit(queue, 3, null);
+		assertTrue(dropped.hasErrored());
+		drain();
+		assertEquals(List.of(2, 3), order);
+	}
+
+	@Test
+	public void callerRunsDispatchesOnCaller() {
+		BoundedDispatchQueue queue = createQueue(BackpressurePolicy.CALLER_RUNS);
+		submit(queue, 1, null);
+		submit(queue, 2, null);
+		AsyncTask<Void> direct = submit(queue, 3, null);
+		assertTrue(direct.hasCompleted());
+		assertEquals(List.of(3), order);
+		drain();
+		assertEquals(List.of(3, 1, 2), order);
+	}
+
+	@Test
+	public void coalesceReplacesPendingDispatch() {
+		BoundedDispatchQueue queue = createQueue(BackpressurePolicy.COALESCE);
+		AsyncTask<Void> replaced = submit(queue, 1, "a");
+		submit(queue, 2, "b");
+		submit(queue, 3, "a");
+		AsyncTask<Void> unmatched = submit(queue, 4, "c");
+		assertTrue(replaced.hasErrored());
+		assertTrue(unmatched.hasErrored());
+		drain();
+		assertEquals(List.of(3, 2), order);
+		assertEquals(2, queue.getRejectedCount());
+	}
+
+	@Test
+	public void blockWaitsForRoom() throws InterruptedException {
+		BoundedDispatchQueue queue = createQueue(BackpressurePolicy.BLOCK);
+		submit(queue, 1, null);
+		submit(queue, 2, null);
+		Thread producer = new Thread(() -> submit(queue, 3, null));
+		producer.start();
+		producer.join(100);
+		assertTrue(producer.isAlive());
+
+		// Draining makes room for the blocked producer
+		drain();
+		producer.join();
+		drain();
+		assertEquals(List.of(1, 2, 3), order);
+	}
+
+	@Test
+	public void failedWorkerStartFailsStrandedEntries() {
+		BoundedDispatchQueue queue = new BoundedDispatchQueue(TestEvent.class, 2, 1, BackpressurePolicy.DROP_NEWEST,
+				r -> {
+					throw new RejectedExecutionException("Executor shut down");
+				});
+		AsyncTask<Void> task = submit(queue, 1, null);
+		assertTrue(task.hasErrored());
+		assertFalse(order.contains(1));
+		assertEquals(0, queue.getActiveWorkers());
+		assertEquals(0, queue.getQueueDepth());
+	}
+
+}
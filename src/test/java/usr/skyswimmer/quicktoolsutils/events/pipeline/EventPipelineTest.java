@@ -0,0 +1,71 @@
+package usr.skyswimmer.quicktoolsutils.events.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import usr.skyswimmer.quicktoolsutils.events.EventBus;
+import usr.skyswimmer.quicktoolsutils.tasks.async.AsyncTask;
+
+public class EventPipelineTest {
+
+	@Test
+	public void shutdownDrainsPendingEntries() throws InterruptedException {
+		for (PipelineWaitStrategy strategy : PipelineWaitStrategy.values()) {
+			EventPipeline pipeline = new EventPipeline(EventBus.getInstance(), 1024, 2, 16, strategy);
+			AtomicInteger ran = new AtomicInteger();
+			for (int i = 0; i < 1000; i++)
+				pipeline.execute(ran::incrementAndGet);
+			pipeline.shutdownAndWait();
+			assertEquals(1000, ran.get(), strategy.toString());
+		}
+	}
+
+	@Test
+	public void publishRacingShutdownIsNeverStranded() throws InterruptedException {
+		for (int round = 0; round < 100; round++) {
+			EventPipeline pipeline = new EventPipeline(EventBus.getInstance(), 64, 2, 8,
+					round % 2 == 0 ? PipelineWaitStrategy.BLOCK : PipelineWaitStrategy.YIELD);
+			AtomicInteger accepted = new AtomicInteger();
+			AtomicInteger ran = new AtomicInteger();
+
+			// Publish until the pipeline rejects
+			Thread[] producers = new Thread[4];
+			for (int i = 0; i < producers.length; i++) {
+				producers[i] = new Thread(() -> {
+					try {
+						while (true) {
+							pipeline.execute(ran::incrementAndGet);
+							accepted.incrementAndGet();
+						}
+					} catch (IllegalStateException e) {
+					}
+				});
+				producers[i].start();
+			}
+			Thread.sleep(1);
+			pipeline.shutdownAndWait();
+			for (Thread th : producers)
+				th.join();
+
+			// Every accepted entry must have run
+			assertEquals(accepted.get(), ran.get());
+		}
+	}
+
+	@Test
+	public void rejectedTaskIsFailed() throws InterruptedException {
+		EventPipeline pipeline = new EventPipeline(EventBus.getInstance(), 8, 1, 1, PipelineWaitStrategy.BLOCK);
+		pipeline.shutdownAndWait();
+		AsyncTask<Void> task = AsyncTask.createTask(() -> {
+		});
+		assertThrows(IllegalStateException.class, () -> AsyncTask.runOn(task, pipeline));
+		assertTrue(task.hasCompleted());
+		assertTrue(task.hasErrored());
+	}
+
+}
@@ -0,0 +1,77 @@
+package usr.skyswimmer.quicktoolsutils.patterns;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class WildcardPatternIndexTest {
+
+	private List<String> match(WildcardPatternIndex<String> index, String text) {
+		List<String> values = new ArrayList<String>();
+		index.match(text, (value, params) -> values.add(value));
+		return values;
+	}
+
+	@Test
+	public void matchesSegmentWildcards() {
+		WildcardPatternIndex<String> index = new WildcardPatternIndex<String>('.');
+		index.add("player.join", "literal");
+		index.add("player.*", "wildcard");
+		index.add("player.**", "rest");
+		index.add("world.*.load", "other");
+
+		assertEquals(List.of("literal", "wildcard", "rest"), match(index, "player.join"));
+		assertEquals(List.of("rest"), match(index, "player.id.join"));
+		assertEquals(List.of(), match(index, "world.load"));
+		assertEquals(List.of("other"), match(index, "world.nether.load"));
+	}
+
+	@Test
+	public void capturesParameters() {
+		WildcardPatternIndex<String> index = new WildcardPatternIndex<String>('.');
+		index.add("player.id*.*", "value");
+		index.add("player.**", "rest");
+
+		List<String[]> params = new ArrayList<String[]>();
+		index.match("player.id7.leave", (value, captured) -> params.add(captured));
+		assertEquals(2, params.size());
+		assertArrayEquals(new String[] { "7", "leave" }, params.get(0));
+		assertArrayEquals(new String[] { "id7.leave" }, params.get(1));
+	}
+
+	@Test
+	public void matchesInRegistrationOrder() {
+		WildcardPatternIndex<String> index = new WildcardPatternIndex<String>('.');
+		index.add("p*.x.join", "1");
+		index.add("player.*.join", "2");
+		index.add("player.**", "3");
+		index.add("player.x.join", "4");
+		assertEquals(List.of("1", "2", "3", "4"), match(index, "player.x.join"));
+	}
+
+	@Test
+	public void removesPatterns() {
+		WildcardPatternIndex<String> index = new WildcardPatternIndex<String>('.');
+		index.add("player.*.join", "a");
+		index.add("player.*.join", "b");
+		assertTrue(index.remove("player.*.join", "a"));
+		assertFalse(index.remove("player.*.join", "a"));
+		assertEquals(List.of("b"), match(index, "player.x.join"));
+		assertTrue(index.remove("player.*.join", "b"));
+		assertTrue(index.isEmpty());
+	}
+
+	@Test
+	public void rejectsInnerRestSegment() {
+		WildcardPatternIndex<String> index = new WildcardPatternIndex<String>('.');
+		assertThrows(IllegalArgumentException.class, () -> index.add("player.**.join", "value"));
+	}
+
+}